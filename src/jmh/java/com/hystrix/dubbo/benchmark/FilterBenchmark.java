@@ -0,0 +1,220 @@
+package com.hystrix.dubbo.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.hystrix.dubbo.MapConfigSource;
+import com.hystrix.dubbo.command.DubboHystrixCommand;
+import com.hystrix.dubbo.constants.HystrixConstants;
+import com.hystrix.dubbo.filter.DubboHystrixFilter;
+import com.hystrix.dubbo.listener.HystrixDynamicSource;
+import com.hystrix.dubbo.model.HystrixModel;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import com.netflix.hystrix.HystrixCircuitBreaker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FilterBenchmark
+ * DubboHystrixFilter.invoke在各条路径上的单次调用开销，invoker直接返回预先创建的结果；
+ * 查看每次调用分配的字节数：mvn -P jmh test-compile exec:exec -Djmh.args="Filter -prof gc"
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+
+    public interface BenchService {
+
+        String disabled(String id);
+
+        String semaphore(String id);
+
+        String thread(String id);
+
+        String open(String id);
+
+        String degrade(String id);
+
+        String fallback(String id);
+    }
+
+    private static final String SCRIPT = "class BenchFallback {\n" +
+            "    def fallback(String id) {\n" +
+            "        return id\n" +
+            "    }\n" +
+            "}";
+
+    private final DubboHystrixFilter filter = new DubboHystrixFilter();
+    private final MapConfigSource configSource = new MapConfigSource();
+    private final HystrixDynamicSource dynamicSource = new HystrixDynamicSource();
+    private final StubInvoker invoker = new StubInvoker();
+
+    private final Invocation disabled = invocation("disabled");
+    private final Invocation semaphore = invocation("semaphore");
+    private final Invocation thread = invocation("thread");
+    private final Invocation open = invocation("open");
+    private final Invocation degrade = invocation("degrade");
+    private final Invocation fallback = invocation("fallback");
+
+    @Setup
+    public void setup() throws InterruptedException {
+        // 熔断时每次调用都会打印异常堆栈，关闭后只统计过滤器本身的开销
+        ((Logger) LoggerFactory.getLogger(DubboHystrixCommand.class)).setLevel(Level.OFF);
+        dynamicSource.setConfigSource(configSource);
+
+        put(disabled, model(HystrixConstants.UNENABLE));
+        put(semaphore, model(HystrixConstants.OPEN));
+
+        HystrixModel threadModel = model(HystrixConstants.OPEN);
+        threadModel.getHystrixConfig().setExecutionIsolationStrategy(HystrixConstants.THREAD);
+        threadModel.getHystrixConfig().setThreadPoolKeyGranularity(HystrixConstants.POOL_METHOD);
+        put(thread, threadModel);
+
+        HystrixModel openModel = model(HystrixConstants.OPEN);
+        openModel.getHystrixConfig().setRequestVolumeThreshold(1);
+        openModel.getHystrixConfig().setSleepWindowInMilliseconds(Integer.MAX_VALUE);
+        openModel.setFallbackScript(SCRIPT);
+        put(open, openModel);
+
+        HystrixModel degradeModel = model(HystrixConstants.OPEN);
+        degradeModel.setDegrade(HystrixConstants.OPEN);
+        degradeModel.setDegradeScript(SCRIPT);
+        put(degrade, degradeModel);
+
+        // 只走fallback，不触发熔断
+        HystrixModel fallbackModel = model(HystrixConstants.OPEN);
+        fallbackModel.getHystrixConfig().setRequestVolumeThreshold(Integer.MAX_VALUE);
+        fallbackModel.setFallbackScript(SCRIPT);
+        put(fallback, fallbackModel);
+
+        dynamicSource.fillConfig();
+        // 等待脚本编译完成，并让open方法的熔断器打开
+        HystrixCircuitBreaker breaker = null;
+        while (null == breaker || !breaker.isOpen() || null == filter.invoke(invoker, degrade).getValue()) {
+            filter.invoke(invoker, open);
+            TimeUnit.MILLISECONDS.sleep(100);
+            breaker = HystrixCircuitBreaker.Factory.getInstance(key(open).getHystrixCommandKey());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        dynamicSource.setConfigSource(null);
+    }
+
+    @Benchmark
+    public Result baseline() {
+        return invoker.invoke(semaphore);
+    }
+
+    @Benchmark
+    public Result disabled() {
+        return filter.invoke(invoker, disabled);
+    }
+
+    @Benchmark
+    public Result semaphore() {
+        return filter.invoke(invoker, semaphore);
+    }
+
+    @Benchmark
+    public Result thread() {
+        return filter.invoke(invoker, thread);
+    }
+
+    @Benchmark
+    public Result shortCircuited() {
+        return filter.invoke(invoker, open);
+    }
+
+    @Benchmark
+    public Result degradeScript() {
+        return filter.invoke(invoker, degrade);
+    }
+
+    @Benchmark
+    public Result fallbackScript() {
+        return filter.invoke(invoker, fallback);
+    }
+
+    private void put(Invocation invocation, HystrixModel model) {
+        configSource.put(key(invocation).getConfigKey(), model);
+    }
+
+    private static MethodKey key(Invocation invocation) {
+        return MethodKeyRegistry.resolve(BenchService.class, invocation.getMethodName(),
+                invocation.getParameterTypes());
+    }
+
+    private static HystrixModel model(String enable) {
+        HystrixModel model = new HystrixModel();
+        model.setEnable(enable);
+        return model;
+    }
+
+    private static Invocation invocation(String method) {
+        return new RpcInvocation(method, new Class<?>[]{String.class}, new Object[]{"1"});
+    }
+
+    /**
+     * open和fallback方法返回非业务异常，其余方法返回成功结果
+     */
+    private static final class StubInvoker implements Invoker<BenchService> {
+
+        private final URL url = URL.valueOf("dubbo://127.0.0.1:20880/" + BenchService.class.getName()
+                + "?side=consumer");
+        private final Result success = new RpcResult("SUCC");
+        private final Result failure = new RpcResult(new RpcException("provider down"));
+
+        @Override
+        public Class<BenchService> getInterface() {
+            return BenchService.class;
+        }
+
+        @Override
+        public Result invoke(Invocation invocation) throws RpcException {
+            String method = invocation.getMethodName();
+            return "open".equals(method) || "fallback".equals(method) ? failure : success;
+        }
+
+        @Override
+        public URL getUrl() {
+            return url;
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.hystrix.dubbo.benchmark;
+
+import com.hystrix.dubbo.script.FallbackHandler;
+import com.hystrix.dubbo.utils.GroovyCacheUtil;
+import groovy.lang.GroovyObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GroovyScriptBenchmark
+ * 降级脚本调用开销：invokeMethod动态分派 vs 静态编译后直接调用接口
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroovyScriptBenchmark {
+
+    private static final String DYNAMIC_SCRIPT = "class DynamicDemo {\n" +
+            "    def fallback(String id, Integer count) {\n" +
+            "        return id\n" +
+            "    }\n" +
+            "}";
+
+    private static final String STATIC_SCRIPT = "import com.hystrix.dubbo.script.FallbackHandler\n" +
+            "class StaticDemo implements FallbackHandler {\n" +
+            "    Object fallback(Object[] args) {\n" +
+            "        return args[0]\n" +
+            "    }\n" +
+            "}";
+
+    private final Object[] args = new Object[]{"id", 1};
+
+    private GroovyObject dynamicInstance;
+    private FallbackHandler dynamicHandler;
+    private FallbackHandler staticHandler;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        GroovyCacheUtil.precompile(DYNAMIC_SCRIPT, false);
+        GroovyCacheUtil.precompile(STATIC_SCRIPT, true);
+        while (null == dynamicHandler || null == staticHandler) {
+            TimeUnit.MILLISECONDS.sleep(100);
+            dynamicInstance = GroovyCacheUtil.getValue(DYNAMIC_SCRIPT);
+            dynamicHandler = GroovyCacheUtil.getHandler(DYNAMIC_SCRIPT, false);
+            staticHandler = GroovyCacheUtil.getHandler(STATIC_SCRIPT, true);
+        }
+    }
+
+    /**
+     * 原有方式：每次调用经过metaClass查找方法
+     */
+    @Benchmark
+    public Object invokeMethod() {
+        return dynamicInstance.invokeMethod("fallback", args);
+    }
+
+    /**
+     * 动态编译脚本，包装为FallbackHandler
+     */
+    @Benchmark
+    public Object dynamicHandler() {
+        return dynamicHandler.fallback(args);
+    }
+
+    /**
+     * 静态编译脚本，直接调用接口方法
+     */
+    @Benchmark
+    public Object staticHandler() {
+        return staticHandler.fallback(args);
+    }
+
+    /**
+     * 包含缓存查找在内的完整取脚本+调用路径
+     */
+    @Benchmark
+    public Object staticLookupAndCall() {
+        return GroovyCacheUtil.getHandler(STATIC_SCRIPT, true).fallback(args);
+    }
+}
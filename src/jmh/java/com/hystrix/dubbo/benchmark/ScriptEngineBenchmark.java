@@ -0,0 +1,90 @@
+package com.hystrix.dubbo.benchmark;
+
+import com.hystrix.dubbo.script.FallbackHandler;
+import com.hystrix.dubbo.script.GroovyScriptEngine;
+import com.hystrix.dubbo.script.QLExpressScriptEngine;
+import com.ql.util.express.ExpressRunner;
+import groovy.lang.GroovyClassLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ScriptEngineBenchmark
+ * groovy与QLExpress执行同一个简单降级规则的开销，包括编译与调用
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScriptEngineBenchmark {
+
+    private static final String GROOVY_SCRIPT = "class MapDemo {\n" +
+            "    def fallback(String id) {\n" +
+            "        return [code: -1, id: id]\n" +
+            "    }\n" +
+            "}";
+
+    private static final String QL_SCRIPT = "return NewMap(\"code\":-1, \"id\":args[0]);";
+
+    private final Object[] args = new Object[]{"id"};
+
+    private final ExpressRunner runner = new ExpressRunner();
+
+    private FallbackHandler groovyHandler;
+    private FallbackHandler qlHandler;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        GroovyScriptEngine groovyEngine = new GroovyScriptEngine();
+        QLExpressScriptEngine qlEngine = new QLExpressScriptEngine();
+        groovyEngine.precompile(GROOVY_SCRIPT, false);
+        qlHandler = qlEngine.getHandler(QL_SCRIPT, false);
+        while (null == groovyHandler) {
+            TimeUnit.MILLISECONDS.sleep(100);
+            groovyHandler = groovyEngine.getHandler(GROOVY_SCRIPT, false);
+        }
+    }
+
+    @Benchmark
+    public Object groovyCall() {
+        return groovyHandler.fallback(args);
+    }
+
+    @Benchmark
+    public Object qlExpressCall() {
+        return qlHandler.fallback(args);
+    }
+
+    /**
+     * 每次编译生成一个新类，配置变更时的开销
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object groovyCompile() throws IOException {
+        try (GroovyClassLoader classLoader = new GroovyClassLoader(getClass().getClassLoader())) {
+            return classLoader.parseClass(GROOVY_SCRIPT);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object qlExpressCompile() throws Exception {
+        return runner.parseInstructionSet(QL_SCRIPT);
+    }
+}
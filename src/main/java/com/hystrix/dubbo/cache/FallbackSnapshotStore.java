@@ -0,0 +1,350 @@
+package com.hystrix.dubbo.cache;
+
+import com.alibaba.com.caucho.hessian.io.Hessian2Input;
+import com.alibaba.com.caucho.hessian.io.Hessian2Output;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.hystrix.dubbo.model.CallKey;
+import com.hystrix.dubbo.model.MethodKey;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * FallbackSnapshotStore
+ * 把{@link LastGoodCache}中的记录定期异步写入文件（hessian2序列化，边序列化边写临时文件后原子替换），
+ * 启动时以内存映射方式加载；加载的记录按配置key暂存，方法第一次需要降级时再放入缓存，重启后不用等远程调用成功就有数据可用；
+ * 暂存的记录过期或超过保留时间后丢弃。通过-Dhystrix.dubbo.lastGood.snapshotFile指定文件后生效
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@Slf4j
+@Component
+public class FallbackSnapshotStore {
+
+    /**
+     * 快照文件路径，不配置时不持久化
+     */
+    private static final String SNAPSHOT_FILE = "hystrix.dubbo.lastGood.snapshotFile";
+    /**
+     * 写入周期，毫秒，默认10000
+     */
+    private static final String SNAPSHOT_INTERVAL = "hystrix.dubbo.lastGood.snapshotIntervalMillis";
+    /**
+     * 加载后暂存记录的最长保留时间，毫秒，默认600000；超过后还没有降级的方法不再需要启动时的数据
+     */
+    private static final String PENDING_RETENTION = "hystrix.dubbo.lastGood.pendingRetentionMillis";
+
+    private static final int MAGIC = 0x48444c47;
+    /**
+     * magic + 数据长度 + crc32
+     */
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * 配置key -> 已加载、还没有放入缓存的记录
+     */
+    private static final ConcurrentMap<String, List<Record>> PENDING = new ConcurrentHashMap<>(256);
+
+    private static ScheduledExecutorService writer;
+    private static Path file;
+    /**
+     * 暂存记录的丢弃时间
+     */
+    private static volatile long pendingDeadline;
+
+    @PostConstruct
+    public void init() {
+        String path = System.getProperty(SNAPSHOT_FILE);
+        if (StringUtils.isNotBlank(path)) {
+            start(Paths.get(path), Long.getLong(SNAPSHOT_INTERVAL, 10_000L));
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        stop();
+    }
+
+    /**
+     * 加载已有的快照并开始定期写入
+     *
+     * @param path
+     * @param intervalMillis
+     */
+    public static synchronized void start(Path path, long intervalMillis) {
+        if (null != writer) {
+            return;
+        }
+        file = path;
+        load(path);
+        pendingDeadline = System.currentTimeMillis() + Long.getLong(PENDING_RETENTION, 600_000L);
+        writer = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("hystrix-fallback-snapshot-%d").setDaemon(true).build());
+        writer.scheduleWithFixedDelay(() -> write(false), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止定期写入，停止前写入一次
+     */
+    public static synchronized void stop() {
+        if (null == writer) {
+            return;
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        write(true);
+        writer = null;
+        file = null;
+    }
+
+    /**
+     * 把方法已加载的记录放入缓存，只在缓存未命中时调用
+     *
+     * @param methodKey
+     * @return 是否有记录放入缓存
+     */
+    static boolean restore(MethodKey methodKey) {
+        if (PENDING.isEmpty()) {
+            return false;
+        }
+        List<Record> records = PENDING.remove(methodKey.getConfigKey());
+        if (null == records) {
+            return false;
+        }
+        for (Record record : records) {
+            LastGoodCache.restore(new CallKey(methodKey, record.arguments),
+                    new LastGoodCache.Entry(record.value, record.maxStaleMillis, record.writeMillis));
+        }
+        return true;
+    }
+
+    private static synchronized void write(boolean force) {
+        Path target = file;
+        if (null == target) {
+            return;
+        }
+        boolean purged = purgePending(System.currentTimeMillis());
+        if (!LastGoodCache.takeDirty() && !purged && !force) {
+            return;
+        }
+        try {
+            write(target);
+        } catch (Exception e) {
+            log.error("[HYSTRIX-SDK] write fallback snapshot fail, file:{}", target, e);
+        }
+    }
+
+    /**
+     * 丢弃已过期的暂存记录，超过保留时间后全部丢弃
+     *
+     * @param now
+     * @return 是否有记录被丢弃
+     */
+    private static boolean purgePending(long now) {
+        if (PENDING.isEmpty()) {
+            return false;
+        }
+        if (now >= pendingDeadline) {
+            PENDING.clear();
+            log.info("[HYSTRIX-SDK] fallback snapshot pending records cleared");
+            return true;
+        }
+        boolean purged = false;
+        for (Iterator<List<Record>> it = PENDING.values().iterator(); it.hasNext(); ) {
+            List<Record> records = it.next();
+            if (records.stream().allMatch(record -> record.isExpired(now))) {
+                it.remove();
+                purged = true;
+            }
+        }
+        return purged;
+    }
+
+    /**
+     * 边序列化边写临时文件，写完后补写头部并替换，进程中途退出不会留下不完整的快照
+     *
+     * @param target
+     * @throws IOException
+     */
+    private static void write(Path target) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if (null != parent) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        long now = System.currentTimeMillis();
+        int count = 0;
+        long length;
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            // 不关闭输出流，关闭会同时关闭channel
+            OutputStream payload = new CheckedOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel),
+                    64 * 1024), crc);
+            for (Map.Entry<CallKey, LastGoodCache.Entry> entry : LastGoodCache.entries().entrySet()) {
+                if (serialize(entry.getKey(), entry.getValue(), payload)) {
+                    count++;
+                }
+            }
+            // 还没有放入缓存、也没有过期的记录一起写回，避免重启后丢失
+            for (List<Record> records : PENDING.values()) {
+                for (Record record : records) {
+                    if (!record.isExpired(now) && serialize(record, payload)) {
+                        count++;
+                    }
+                }
+            }
+            payload.flush();
+            length = channel.position() - HEADER_SIZE;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt((int) length).putLong(crc.getValue()).flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("[HYSTRIX-SDK] fallback snapshot written, records:{}, bytes:{}", count, length);
+    }
+
+    private static boolean serialize(CallKey key, LastGoodCache.Entry entry, OutputStream payload)
+            throws IOException {
+        return serialize(new Record(key.getMethodKey().getConfigKey(), key.getArguments(), entry.getValue(),
+                entry.getMaxStaleMillis(), entry.getWriteMillis()), payload);
+    }
+
+    private static boolean serialize(Record record, OutputStream payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try {
+            Hessian2Output output = new Hessian2Output(bytes);
+            output.writeString(record.configKey);
+            output.writeLong(record.writeMillis);
+            output.writeLong(record.maxStaleMillis);
+            output.writeObject(record.arguments);
+            output.writeObject(record.value);
+            output.flush();
+        } catch (Exception e) {
+            // 参数或返回值不能序列化时跳过该记录
+            log.debug("[HYSTRIX-SDK] skip fallback record, key:{}", record.configKey, e);
+            return false;
+        }
+        int length = bytes.size();
+        payload.write(length >>> 24);
+        payload.write(length >>> 16);
+        payload.write(length >>> 8);
+        payload.write(length);
+        bytes.writeTo(payload);
+        return true;
+    }
+
+    private static void load(Path path) {
+        if (!Files.isRegularFile(path)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int count = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+                log.warn("[HYSTRIX-SDK] ignore unknown fallback snapshot, file:{}", path);
+                return;
+            }
+            int length = buffer.getInt();
+            long checksum = buffer.getLong();
+            if (length < 0 || length > buffer.remaining()) {
+                log.warn("[HYSTRIX-SDK] ignore truncated fallback snapshot, file:{}", path);
+                return;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if (crc.getValue() != checksum) {
+                log.warn("[HYSTRIX-SDK] ignore corrupted fallback snapshot, file:{}", path);
+                return;
+            }
+            ByteBuffer records = ByteBuffer.wrap(payload);
+            while (records.remaining() >= 4) {
+                int size = records.getInt();
+                Record record = deserialize(payload, records.position(), size);
+                records.position(records.position() + size);
+                if (null != record && !record.isExpired(now)) {
+                    PENDING.computeIfAbsent(record.configKey, k -> new ArrayList<>()).add(record);
+                    count++;
+                }
+            }
+            log.info("[HYSTRIX-SDK] fallback snapshot loaded, records:{}, file:{}", count, path);
+        } catch (Exception e) {
+            log.error("[HYSTRIX-SDK] load fallback snapshot fail, file:{}", path, e);
+        }
+    }
+
+    private static Record deserialize(byte[] payload, int offset, int size) {
+        try {
+            Hessian2Input input = new Hessian2Input(new ByteArrayInputStream(payload, offset, size));
+            String configKey = input.readString();
+            long writeMillis = input.readLong();
+            long maxStaleMillis = input.readLong();
+            Object[] arguments = (Object[]) input.readObject();
+            Object value = input.readObject();
+            return new Record(configKey, arguments, value, maxStaleMillis, writeMillis);
+        } catch (Exception e) {
+            // 类已删除或结构不兼容时跳过该记录
+            log.debug("[HYSTRIX-SDK] skip fallback record", e);
+            return null;
+        }
+    }
+
+    private static final class Record {
+
+        private final String configKey;
+        private final Object[] arguments;
+        private final Object value;
+        private final long maxStaleMillis;
+        private final long writeMillis;
+
+        Record(String configKey, Object[] arguments, Object value, long maxStaleMillis, long writeMillis) {
+            this.configKey = configKey;
+            this.arguments = arguments;
+            this.value = value;
+            this.maxStaleMillis = maxStaleMillis;
+            this.writeMillis = writeMillis;
+        }
+
+        boolean isExpired(long now) {
+            return now - writeMillis >= maxStaleMillis;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.hystrix.dubbo.cache;
+
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.google.common.annotations.VisibleForTesting;
+import com.hystrix.dubbo.model.CallKey;
+import com.hystrix.dubbo.model.MethodKey;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LastGoodCache
+ * 按方法 + 参数记录最近一次成功的返回值，熔断打开或调用超时时代替空结果返回；
+ * 按估算的返回值字节数限制总大小，条目超过写入时的最大陈旧时间后过期
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public final class LastGoodCache {
+
+    /**
+     * 缓存的最大总权重，权重为估算的返回值字节数，默认64MB
+     */
+    private static final String MAXIMUM_WEIGHT = "hystrix.dubbo.lastGood.maximumWeight";
+
+    /**
+     * 估算大小时对象头、引用及基本类型字段的字节数
+     */
+    private static final int OBJECT_BYTES = 16;
+    private static final int REFERENCE_BYTES = 8;
+    /**
+     * 估算时展开的最大层数，集合、数组、Map只采样前几个元素按平均值推算
+     */
+    private static final int MAX_DEPTH = 4;
+    private static final int SAMPLE_SIZE = 8;
+
+    /**
+     * 类 -> 需要估算的实例字段
+     */
+    private static final ClassValue<Field[]> FIELDS = new ClassValue<Field[]>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> clazz = type; null != clazz && Object.class != clazz; clazz = clazz.getSuperclass()) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    try {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    } catch (RuntimeException e) {
+                        // 无法访问的字段按引用大小估算
+                    }
+                }
+            }
+            return fields.toArray(new Field[0]);
+        }
+    };
+
+    private static final Cache<CallKey, Entry> CACHE = Caffeine.newBuilder()
+            .maximumWeight(Long.getLong(MAXIMUM_WEIGHT, 64L * 1024 * 1024))
+            .weigher((CallKey key, Entry entry) -> entry.weight)
+            .expireAfter(new Expiry<CallKey, Entry>() {
+                @Override
+                public long expireAfterCreate(CallKey key, Entry entry, long currentTime) {
+                    return entry.remainingNanos();
+                }
+
+                @Override
+                public long expireAfterUpdate(CallKey key, Entry entry, long currentTime, long currentDuration) {
+                    return entry.remainingNanos();
+                }
+
+                @Override
+                public long expireAfterRead(CallKey key, Entry entry, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+
+    /**
+     * 上次持久化之后是否有新的记录
+     */
+    private static volatile boolean dirty = false;
+
+    private LastGoodCache() {
+    }
+
+    /**
+     * 记录成功的返回值，有异常的结果不记录
+     *
+     * @param methodKey
+     * @param invocation
+     * @param result
+     * @param maxStaleMillis
+     *             最大陈旧时间
+     */
+    public static void put(MethodKey methodKey, Invocation invocation, Result result, long maxStaleMillis) {
+        if (null == result || result.hasException() || maxStaleMillis <= 0) {
+            return;
+        }
+        Entry entry = new Entry(result.getValue(), maxStaleMillis, System.currentTimeMillis());
+        // 已有记录时沿用缓存中的key，只在第一次写入时复制参数
+        if (null == CACHE.asMap().computeIfPresent(new CallKey(methodKey, invocation.getArguments()),
+                (key, old) -> entry)) {
+            CACHE.put(CallKey.copyOf(methodKey, invocation.getArguments()), entry);
+        }
+        if (!dirty) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * @param methodKey
+     * @param invocation
+     * @param maxStaleMillis
+     *             最大陈旧时间，按当前配置再检查一次，配置调小后立即生效
+     * @return 没有记录或已过期时返回null
+     */
+    public static Result get(MethodKey methodKey, Invocation invocation, long maxStaleMillis) {
+        CallKey key = new CallKey(methodKey, invocation.getArguments());
+        Entry entry = CACHE.getIfPresent(key);
+        if (null == entry && FallbackSnapshotStore.restore(methodKey)) {
+            entry = CACHE.getIfPresent(key);
+        }
+        if (null == entry || System.nanoTime() - entry.writeNanos > TimeUnit.MILLISECONDS.toNanos(maxStaleMillis)) {
+            return null;
+        }
+        return new RpcResult(entry.value);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public static void invalidateAll() {
+        CACHE.invalidateAll();
+    }
+
+    /**
+     * 恢复持久化的记录，已有更新的记录时不覆盖
+     *
+     * @param key
+     * @param entry
+     */
+    static void restore(CallKey key, Entry entry) {
+        if (entry.remainingNanos() > 0) {
+            CACHE.asMap().putIfAbsent(key, entry);
+        }
+    }
+
+    /**
+     * 当前所有记录，持久化使用
+     *
+     * @return
+     */
+    static Map<CallKey, Entry> entries() {
+        return CACHE.asMap();
+    }
+
+    /**
+     * 读取并清除变更标记
+     *
+     * @return 上次调用之后是否有新的记录
+     */
+    static boolean takeDirty() {
+        if (!dirty) {
+            return false;
+        }
+        dirty = false;
+        return true;
+    }
+
+    /**
+     * 估算返回值占用的字节数：字符串按长度，普通对象按字段递归，集合、数组、Map采样前{@link #SAMPLE_SIZE}个元素
+     * 按平均大小乘以元素数，超过{@link #MAX_DEPTH}层的对象按对象头计算
+     *
+     * @param value
+     * @return 至少为1
+     */
+    @VisibleForTesting
+    public static int weigh(Object value) {
+        long bytes;
+        try {
+            bytes = estimate(value, 0);
+        } catch (RuntimeException e) {
+            // 并发修改等异常时按最小值计算
+            bytes = OBJECT_BYTES;
+        }
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, bytes));
+    }
+
+    private static long estimate(Object value, int depth) {
+        if (null == value) {
+            return 0;
+        } else if (value instanceof CharSequence) {
+            return OBJECT_BYTES + 2L * ((CharSequence) value).length();
+        } else if (value instanceof Number || value instanceof Boolean || value instanceof Character
+                || value instanceof Enum || depth >= MAX_DEPTH) {
+            return OBJECT_BYTES;
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            return OBJECT_BYTES + sample(collection.iterator(), collection.size(), depth);
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            return OBJECT_BYTES + sample(map.keySet().iterator(), map.size(), depth)
+                    + sample(map.values().iterator(), map.size(), depth);
+        } else if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            if (value.getClass().getComponentType().isPrimitive()) {
+                return OBJECT_BYTES + (long) REFERENCE_BYTES * length;
+            }
+            List<Object> elements = new ArrayList<>(Math.min(length, SAMPLE_SIZE));
+            for (int i = 0; i < length && i < SAMPLE_SIZE; i++) {
+                elements.add(Array.get(value, i));
+            }
+            return OBJECT_BYTES + sample(elements.iterator(), length, depth);
+        }
+        long bytes = OBJECT_BYTES;
+        for (Field field : FIELDS.get(value.getClass())) {
+            bytes += REFERENCE_BYTES;
+            if (!field.getType().isPrimitive()) {
+                try {
+                    bytes += estimate(field.get(value), depth + 1);
+                } catch (IllegalAccessException e) {
+                    // 按引用大小计算
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 按前{@link #SAMPLE_SIZE}个元素的平均大小推算所有元素的大小
+     */
+    private static long sample(Iterator<?> elements, int size, int depth) {
+        long bytes = 0;
+        int sampled = 0;
+        while (sampled < SAMPLE_SIZE && elements.hasNext()) {
+            bytes += REFERENCE_BYTES + estimate(elements.next(), depth + 1);
+            sampled++;
+        }
+        return 0 == sampled ? 0 : bytes / sampled * size;
+    }
+
+    static final class Entry {
+
+        private final Object value;
+        private final int weight;
+        private final long maxStaleMillis;
+        /**
+         * 写入时间，持久化后按该时间计算陈旧时间
+         */
+        private final long writeMillis;
+        private final long writeNanos;
+
+        Entry(Object value, long maxStaleMillis, long writeMillis) {
+            this.value = value;
+            this.weight = weigh(value);
+            this.maxStaleMillis = maxStaleMillis;
+            this.writeMillis = writeMillis;
+            this.writeNanos = System.nanoTime()
+                    - TimeUnit.MILLISECONDS.toNanos(Math.max(0, System.currentTimeMillis() - writeMillis));
+        }
+
+        long remainingNanos() {
+            return TimeUnit.MILLISECONDS.toNanos(maxStaleMillis) - (System.nanoTime() - writeNanos);
+        }
+
+        Object getValue() {
+            return value;
+        }
+
+        long getMaxStaleMillis() {
+            return maxStaleMillis;
+        }
+
+        long getWriteMillis() {
+            return writeMillis;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.hystrix.dubbo.cluster;
+
+import com.alibaba.dubbo.rpc.Invoker;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.hystrix.dubbo.model.HystrixConfig;
+import com.hystrix.dubbo.model.MethodKey;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OutlierDetector
+ * 按方法统计每个提供者地址的调用结果，一个统计周期内错误率超过阈值的提供者被摘除一段时间，
+ * 期间调用改发到其它提供者；方法级的熔断器仍然负责整体故障。
+ * 计数使用LongAdder，周期结束时由一个线程判断是否摘除
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@Slf4j
+public final class OutlierDetector {
+
+    private static final ConcurrentMap<String, OutlierDetector> DETECTORS = new ConcurrentHashMap<>(64);
+
+    private final String groupKey;
+    private final String commandKey;
+    /**
+     * 提供者地址 -> 调用统计
+     */
+    private final ConcurrentMap<String, ProviderHealth> providers = new ConcurrentHashMap<>(16);
+    private volatile Ticker ticker = Ticker.systemTicker();
+
+    private OutlierDetector(MethodKey methodKey) {
+        this.groupKey = methodKey.getGroupKey();
+        this.commandKey = methodKey.getCommandKeyName();
+    }
+
+    public static OutlierDetector getInstance(MethodKey methodKey) {
+        OutlierDetector detector = DETECTORS.get(methodKey.getConfigKey());
+        if (null != detector) {
+            return detector;
+        }
+        return DETECTORS.computeIfAbsent(methodKey.getConfigKey(), key -> new OutlierDetector(methodKey));
+    }
+
+    public static Collection<OutlierDetector> getInstances() {
+        return Collections.unmodifiableCollection(DETECTORS.values());
+    }
+
+    /**
+     * 选中的提供者被摘除时改选其它未被摘除的提供者
+     *
+     * @param invoker
+     *             集群选中的invoker
+     * @return 没有其它可用提供者时返回原invoker
+     */
+    public Invoker<?> route(Invoker<?> invoker) {
+        ProviderRegistry.register(invoker);
+        if (!isEjected(invoker.getUrl().getAddress())) {
+            return invoker;
+        }
+        Invoker<?> other = ProviderRegistry.selectOther(invoker, candidate -> !isEjected(candidate.getUrl().getAddress()));
+        return null == other ? invoker : other;
+    }
+
+    /**
+     * 记录一次调用结果
+     *
+     * @param invoker
+     *             实际调用的invoker
+     * @param success
+     *             是否成功，业务异常算成功
+     * @param config
+     */
+    public void record(Invoker<?> invoker, boolean success, HystrixConfig config) {
+        String address = invoker.getUrl().getAddress();
+        ProviderHealth health = providers.get(address);
+        if (null == health) {
+            long windowEnd = ticker.read() + TimeUnit.MILLISECONDS.toNanos(config.getOutlierIntervalMillis());
+            health = providers.computeIfAbsent(address, k -> new ProviderHealth(windowEnd));
+        }
+        if (success) {
+            health.success.increment();
+        } else {
+            health.failure.increment();
+        }
+        long now = ticker.read();
+        long end = health.windowEnd.get();
+        if (now - end >= 0 && health.windowEnd.compareAndSet(end,
+                now + TimeUnit.MILLISECONDS.toNanos(config.getOutlierIntervalMillis()))) {
+            evaluate(address, health, now, config);
+        }
+    }
+
+    private void evaluate(String address, ProviderHealth health, long now, HystrixConfig config) {
+        long success = health.success.sumThenReset();
+        long failure = health.failure.sumThenReset();
+        long total = success + failure;
+        if (total < config.getOutlierRequestVolumeThreshold()
+                || failure * 100 < total * config.getOutlierErrorThresholdPercentage()) {
+            return;
+        }
+        // 同时被摘除的提供者不超过maxEjectionPercent
+        long ejected = providers.values().stream().filter(provider -> provider.isEjected(now)).count();
+        if ((ejected + 1) * 100 > (long) providers.size() * config.getOutlierMaxEjectionPercent()) {
+            log.warn("[HYSTRIX-SDK] outlier not ejected, max ejection reached, key:{}.{}, provider:{}", groupKey,
+                    commandKey, address);
+            return;
+        }
+        health.ejectedUntil = now + TimeUnit.MILLISECONDS.toNanos(config.getOutlierEjectionMillis());
+        health.ejected = true;
+        log.warn("[HYSTRIX-SDK] outlier ejected, key:{}.{}, provider:{}, failure:{}/{}, ejection:{}ms", groupKey,
+                commandKey, address, failure, total, config.getOutlierEjectionMillis());
+    }
+
+    public boolean isEjected(String address) {
+        ProviderHealth health = providers.get(address);
+        return null != health && health.isEjected(ticker.read());
+    }
+
+    /**
+     * 替换统计周期和摘除时间使用的时钟
+     *
+     * @param ticker
+     */
+    @VisibleForTesting
+    public void setTicker(Ticker ticker) {
+        this.ticker = ticker;
+    }
+
+    public String getGroupKey() {
+        return groupKey;
+    }
+
+    public String getCommandKey() {
+        return commandKey;
+    }
+
+    /**
+     * @return 提供者地址 -> 是否被摘除
+     */
+    public Map<String, Boolean> getEjections() {
+        long now = ticker.read();
+        Map<String, Boolean> ejections = new TreeMap<>();
+        providers.forEach((address, health) -> ejections.put(address, health.isEjected(now)));
+        return ejections;
+    }
+
+    /**
+     * 单个提供者的调用统计
+     */
+    private static final class ProviderHealth {
+
+        private final LongAdder success = new LongAdder();
+        private final LongAdder failure = new LongAdder();
+        private final AtomicLong windowEnd;
+        /**
+         * 摘除截止时间，纳秒，只由判断周期的线程修改
+         */
+        private volatile long ejectedUntil;
+        private volatile boolean ejected = false;
+
+        ProviderHealth(long windowEnd) {
+            this.windowEnd = new AtomicLong(windowEnd);
+        }
+
+        boolean isEjected(long now) {
+            return ejected && ejectedUntil - now > 0;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.hystrix.dubbo.cluster;
+
+import com.alibaba.dubbo.rpc.Invoker;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * ProviderRegistry
+ * 记录消费端引用的各个提供者invoker（按接口 + 提供者地址），由ProviderRegistryListener在引用时写入，
+ * 过滤器也会补充经过的invoker；过滤器位于集群选择之后，只能看到已选中的invoker，需要另选提供者时从这里获取
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public final class ProviderRegistry {
+
+    /**
+     * 接口 -> 提供者地址 -> invoker
+     */
+    private static final ConcurrentMap<Class<?>, ConcurrentMap<String, Invoker<?>>> PROVIDERS =
+            new ConcurrentHashMap<>(64);
+    /**
+     * 当前线程正在调用另选的提供者
+     */
+    private static final ThreadLocal<Boolean> REROUTING = new ThreadLocal<>();
+
+    private ProviderRegistry() {
+    }
+
+    /**
+     * 记录invoker，已记录的地址直接返回
+     *
+     * @param invoker
+     */
+    public static void register(Invoker<?> invoker) {
+        ConcurrentMap<String, Invoker<?>> providers = PROVIDERS.get(invoker.getInterface());
+        if (null == providers) {
+            providers = PROVIDERS.computeIfAbsent(invoker.getInterface(), k -> new ConcurrentHashMap<>(16));
+        }
+        String address = invoker.getUrl().getAddress();
+        Invoker<?> registered = providers.get(address);
+        // 提供者重新上线后invoker会重建，替换掉已销毁的
+        if (registered != invoker && (null == registered || !registered.isAvailable())) {
+            providers.put(address, invoker);
+        }
+    }
+
+    /**
+     * 提供者下线时移除invoker，同一地址记录的是其它已销毁的invoker时一并移除
+     *
+     * @param invoker
+     */
+    public static void unregister(Invoker<?> invoker) {
+        ConcurrentMap<String, Invoker<?>> providers = PROVIDERS.get(invoker.getInterface());
+        if (null != providers) {
+            providers.computeIfPresent(invoker.getUrl().getAddress(),
+                    (address, registered) -> registered == invoker || !registered.isAvailable() ? null : registered);
+        }
+    }
+
+    /**
+     * 调用另选的提供者；监听器记录的invoker可能带有消费端过滤器链，调用期间再次经过过滤器时直接调用
+     *
+     * @param call
+     * @return
+     */
+    public static <T> T reroute(Supplier<T> call) {
+        if (isRerouting()) {
+            return call.get();
+        }
+        REROUTING.set(Boolean.TRUE);
+        try {
+            return call.get();
+        } finally {
+            REROUTING.remove();
+        }
+    }
+
+    /**
+     * @return 当前线程是否正在调用另选的提供者
+     */
+    public static boolean isRerouting() {
+        return null != REROUTING.get();
+    }
+
+    /**
+     * 随机选择同一接口的另一个可用提供者
+     *
+     * @param invoker
+     *             已选中的invoker
+     * @return 没有其它可用提供者时返回null
+     */
+    public static Invoker<?> selectOther(Invoker<?> invoker) {
+        return selectOther(invoker, candidate -> true);
+    }
+
+    /**
+     * 随机选择同一接口的另一个满足条件的可用提供者
+     *
+     * @param invoker
+     *             已选中的invoker
+     * @param filter
+     * @return 没有满足条件的提供者时返回null
+     */
+    public static Invoker<?> selectOther(Invoker<?> invoker, Predicate<Invoker<?>> filter) {
+        ConcurrentMap<String, Invoker<?>> providers = PROVIDERS.get(invoker.getInterface());
+        if (null == providers || providers.size() < 2) {
+            return null;
+        }
+        String address = invoker.getUrl().getAddress();
+        Invoker<?>[] candidates = providers.values().toArray(new Invoker<?>[0]);
+        int start = ThreadLocalRandom.current().nextInt(candidates.length);
+        for (int i = 0; i < candidates.length; i++) {
+            Invoker<?> candidate = candidates[(start + i) % candidates.length];
+            if (!address.equals(candidate.getUrl().getAddress()) && candidate.isAvailable() && filter.test(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
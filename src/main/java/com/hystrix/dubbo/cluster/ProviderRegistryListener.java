@@ -0,0 +1,28 @@
+package com.hystrix.dubbo.cluster;
+
+import com.alibaba.dubbo.common.extension.Activate;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.listener.InvokerListenerAdapter;
+
+/**
+ * ProviderRegistryListener
+ * 消费端引用提供者时记录invoker，提供者下线时移除，
+ * 启动后或调用量小的方法也能从ProviderRegistry中另选提供者
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@Activate
+public class ProviderRegistryListener extends InvokerListenerAdapter {
+
+    @Override
+    public void referred(Invoker<?> invoker) throws RpcException {
+        ProviderRegistry.register(invoker);
+    }
+
+    @Override
+    public void destroyed(Invoker<?> invoker) {
+        ProviderRegistry.unregister(invoker);
+    }
+}
@@ -0,0 +1,155 @@
+package com.hystrix.dubbo.command;
+
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.hystrix.dubbo.model.ConfigSnapshot;
+import com.hystrix.dubbo.model.HystrixConfig;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import com.netflix.hystrix.HystrixCollapser;
+import com.netflix.hystrix.HystrixCollapserKey;
+import com.netflix.hystrix.HystrixCollapserProperties;
+import com.netflix.hystrix.HystrixCommand;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DubboHystrixCollapser
+ * 把时间窗口内同一方法的单个调用合并为一次批量方法调用，再按参数把结果分发给各个调用；
+ * 全局范围合并，createCommand只在第一个创建的实例上调用，所以invoker等都从请求参数中取；
+ * 同一批只包含发往同一提供者、attachment相同的调用，批量调用不会带上其它调用的attachment
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@Slf4j
+public class DubboHystrixCollapser extends HystrixCollapser<Result, Result, DubboHystrixCollapser.CollapsedCall> {
+
+    private static final Class<?>[] BATCH_TYPES = new Class<?>[]{List.class};
+
+    private final CollapsedCall call;
+
+    public DubboHystrixCollapser(Invoker<?> invoker, Invocation invocation, MethodKey methodKey,
+                                 ConfigSnapshot snapshot) {
+        super(hystrixCollapserSetter(methodKey, snapshot));
+        this.call = new CollapsedCall(invoker, invocation, snapshot);
+    }
+
+    private static Setter hystrixCollapserSetter(MethodKey methodKey, ConfigSnapshot snapshot) {
+        HystrixConfig hystrixConfig = snapshot.getHystrixConfig();
+        return Setter
+                .withCollapserKey(HystrixCollapserKey.Factory.asKey(methodKey.getConfigKey()))
+                // 跨线程合并，不依赖HystrixRequestContext
+                .andScope(Scope.GLOBAL)
+                .andCollapserPropertiesDefaults(HystrixCollapserProperties.Setter()
+                        .withTimerDelayInMilliseconds(hystrixConfig.getCollapserTimerDelayInMilliseconds())
+                        .withMaxRequestsInBatch(hystrixConfig.getCollapserMaxRequestsInBatch()));
+    }
+
+    @Override
+    public CollapsedCall getRequestArgument() {
+        return call;
+    }
+
+    @Override
+    protected Collection<Collection<CollapsedRequest<Result, CollapsedCall>>> shardRequests(
+            Collection<CollapsedRequest<Result, CollapsedCall>> requests) {
+        Map<List<Object>, Collection<CollapsedRequest<Result, CollapsedCall>>> shards = new LinkedHashMap<>();
+        for (CollapsedRequest<Result, CollapsedCall> request : requests) {
+            CollapsedCall call = request.getArgument();
+            shards.computeIfAbsent(Arrays.asList(call.invoker, call.attachments), key -> new ArrayList<>())
+                    .add(request);
+        }
+        return shards.values();
+    }
+
+    @Override
+    protected HystrixCommand<Result> createCommand(Collection<CollapsedRequest<Result, CollapsedCall>> requests) {
+        CollapsedCall first = requests.iterator().next().getArgument();
+        List<Object> arguments = new ArrayList<>(requests.size());
+        for (CollapsedRequest<Result, CollapsedCall> request : requests) {
+            arguments.add(request.getArgument().getArgument());
+        }
+        String batchMethod = first.snapshot.getModel().getBatchMethod();
+        // 批量方法使用自己的key和配置，同一批调用的attachment相同
+        RpcInvocation batchInvocation = new RpcInvocation(batchMethod, BATCH_TYPES, new Object[]{arguments},
+                new HashMap<>(first.attachments), first.invoker);
+        MethodKey batchKey = MethodKeyRegistry.resolve(first.invoker.getInterface(), batchMethod, BATCH_TYPES);
+        return new DubboHystrixCommand(first.invoker, batchInvocation, batchKey, batchKey.getSnapshot());
+    }
+
+    @Override
+    protected void mapResponseToRequests(Result batchResult,
+                                         Collection<CollapsedRequest<Result, CollapsedCall>> requests) {
+        if (DubboHystrixCommand.isRemoteFailure(batchResult)) {
+            // 远程调用异常由各调用走熔断脚本
+            Throwable cause = batchResult.getException();
+            requests.forEach(request -> request.setException((RpcException) cause));
+            return;
+        } else if (batchResult.hasException()) {
+            // 业务异常与未合并的调用一样通过Result返回给调用方，不走熔断脚本
+            Throwable cause = batchResult.getException();
+            requests.forEach(request -> request.setResponse(new RpcResult(cause)));
+            return;
+        }
+        Object value = batchResult.getValue();
+        if (value instanceof List && ((List<?>) value).size() == requests.size()) {
+            Iterator<?> values = ((List<?>) value).iterator();
+            requests.forEach(request -> request.setResponse(new RpcResult(values.next())));
+        } else if (value instanceof Map) {
+            Map<?, ?> values = (Map<?, ?>) value;
+            requests.forEach(request -> request.setResponse(new RpcResult(values.get(request.getArgument()
+                    .getArgument()))));
+        } else {
+            // 批量调用走了降级或返回值不符合约定，各调用按自己的熔断逻辑处理
+            IllegalStateException exception = new IllegalStateException("unexpected batch result of "
+                    + requests.size() + " requests: " + (null == value ? null : value.getClass().getName()));
+            requests.forEach(request -> request.setException(exception));
+        }
+    }
+
+    /**
+     * 被合并的单个调用
+     */
+    public static final class CollapsedCall {
+
+        private final Invoker<?> invoker;
+        private final Invocation invocation;
+        private final ConfigSnapshot snapshot;
+        /**
+         * 去掉batchIgnoredAttachments后的attachment，用于分批及批量调用
+         */
+        private final Map<String, String> attachments;
+
+        CollapsedCall(Invoker<?> invoker, Invocation invocation, ConfigSnapshot snapshot) {
+            this.invoker = invoker;
+            this.invocation = invocation;
+            this.snapshot = snapshot;
+            this.attachments = null == invocation.getAttachments() ? new HashMap<>()
+                    : new HashMap<>(invocation.getAttachments());
+            List<String> ignored = snapshot.getModel().getBatchIgnoredAttachments();
+            if (null != ignored) {
+                attachments.keySet().removeAll(ignored);
+            }
+        }
+
+        /**
+         * @return 单个调用的唯一参数
+         */
+        Object getArgument() {
+            return invocation.getArguments()[0];
+        }
+    }
+}
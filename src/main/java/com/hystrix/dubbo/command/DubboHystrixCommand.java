@@ -1,26 +1,37 @@
 package com.hystrix.dubbo.command;
 
+import com.alibaba.dubbo.common.Constants;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.Result;
 import com.alibaba.dubbo.rpc.RpcException;
 import com.alibaba.dubbo.rpc.RpcResult;
-import com.alibaba.fastjson.JSON;
+import com.hystrix.dubbo.cache.LastGoodCache;
+import com.hystrix.dubbo.cluster.OutlierDetector;
+import com.hystrix.dubbo.cluster.ProviderRegistry;
 import com.hystrix.dubbo.constants.HystrixConstants;
+import com.hystrix.dubbo.metrics.CommandLatencyMetrics;
+import com.hystrix.dubbo.model.ConfigSnapshot;
 import com.hystrix.dubbo.model.HystrixConfig;
-import com.hystrix.dubbo.model.HystrixModel;
-import com.hystrix.dubbo.utils.GroovyCacheUtil;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.script.FallbackHandler;
+import com.hystrix.dubbo.script.ScriptHandle;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import com.netflix.hystrix.HystrixCircuitBreaker;
 import com.netflix.hystrix.HystrixCommand;
 import com.netflix.hystrix.HystrixCommandGroupKey;
 import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandMetrics;
 import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixThreadPool;
+import com.netflix.hystrix.HystrixThreadPoolKey;
 import com.netflix.hystrix.HystrixThreadPoolProperties;
 import com.netflix.hystrix.exception.HystrixRuntimeException;
-import groovy.lang.GroovyObject;
+import com.netflix.hystrix.strategy.properties.HystrixPropertiesFactory;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang.StringUtils;
 
-import java.util.Objects;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 
 /**
  * DubboHystrixCommand
@@ -33,40 +44,72 @@ public class DubboHystrixCommand extends HystrixCommand<Result> {
 
     private Invoker<?> invoker;
     private Invocation invocation;
+    private MethodKey methodKey;
     /**
-     * groovy脚本指定方法
+     * 创建命令时的配置快照，为null说明没有配置
      */
-    private static final String FALLBACK = "fallback";
+    private ConfigSnapshot snapshot;
+    private CommandLatencyMetrics latencyMetrics;
+    /**
+     * 创建命令的时间，用于统计线程池排队耗时
+     */
+    private final long createNanos = System.nanoTime();
+    /**
+     * 没有配置时使用的默认配置，只读
+     */
+    static final HystrixConfig DEFAULT_CONFIG = new HystrixConfig();
+    /**
+     * HystrixThreadPool.Factory.getInstance不是public，预热时通过反射创建线程池
+     */
+    private static final Method THREAD_POOL_FACTORY = threadPoolFactory();
 
     public DubboHystrixCommand(Invoker<?> invoker, Invocation invocation) {
+        this(invoker, invocation, MethodKeyRegistry.resolve(invoker, invocation));
+    }
+
+    public DubboHystrixCommand(Invoker<?> invoker, Invocation invocation, MethodKey methodKey) {
+        this(invoker, invocation, methodKey, methodKey.getSnapshot());
+    }
+
+    public DubboHystrixCommand(Invoker<?> invoker, Invocation invocation, MethodKey methodKey,
+                               ConfigSnapshot snapshot) {
         // 构造HystrixCommand.Setter
-        super(hystrixCommandSetter(invoker, invocation));
+        super(hystrixCommandSetter(methodKey, snapshot));
         this.invoker = invoker;
         this.invocation = invocation;
-
+        this.methodKey = methodKey;
+        this.snapshot = snapshot;
+        this.latencyMetrics = CommandLatencyMetrics.getInstance(methodKey);
     }
 
-    private static Setter hystrixCommandSetter(Invoker<?> invoker, Invocation invocation) {
+    private static Setter hystrixCommandSetter(MethodKey methodKey, ConfigSnapshot snapshot) {
         // interfaceName.methodName
-        String key = getKey(invocation.getMethodName(), invoker.getInterface().getName(), invocation.getParameterTypes());
-
-        HystrixModel hystrixModel = config(key);
-        if (null == hystrixModel || null == hystrixModel.getHystrixConfig()) {
-            hystrixModel = new HystrixModel();
-        }
-        HystrixConfig hystrixConfig = hystrixModel.getHystrixConfig();
+        HystrixConfig hystrixConfig = null == snapshot ? DEFAULT_CONFIG : snapshot.getHystrixConfig();
 
-        return Setter
+        Setter setter = Setter
                 // 组名使用服务接口模块名称
-                .withGroupKey(HystrixCommandGroupKey.Factory.asKey(invoker.getInterface().getName()))
-                // 隔离粒度为接口方法, 但是同一个接口中的所有方法公用一个线程池, 各个服务接口的线程池是隔离的
-                // 配置到这里, 就说明, 相同的接口服务, 相同的方法, 拥有相同的熔断配置策略
-                .andCommandKey(HystrixCommandKey.Factory.asKey(
-                        getCommandKey(invocation.getMethodName(), invocation.getParameterTypes())))
+                .withGroupKey(methodKey.getHystrixGroupKey())
+                // 隔离粒度为接口方法, 相同的接口服务, 相同的方法, 拥有相同的熔断配置策略
+                .andCommandKey(methodKey.getHystrixCommandKey())
                 // 熔断配置
                 .andCommandPropertiesDefaults(hystrixCommandPropertiesSetter(hystrixConfig))
                 // 线程池配置
                 .andThreadPoolPropertiesDefaults(hystrixThreadPoolPropertiesSetter(hystrixConfig));
+        HystrixThreadPoolKey threadPoolKey = threadPoolKey(snapshot);
+        if (null != threadPoolKey) {
+            setter.andThreadPoolKey(threadPoolKey);
+        }
+        return setter;
+    }
+
+    /**
+     * 线程池粒度由threadPoolKeyGranularity决定，没有配置时同一个接口中的所有方法公用一个线程池
+     *
+     * @param snapshot
+     * @return 没有配置时返回null，hystrix按组名使用线程池
+     */
+    static HystrixThreadPoolKey threadPoolKey(ConfigSnapshot snapshot) {
+        return null == snapshot ? null : snapshot.getThreadPoolKey();
     }
 
     /**
@@ -81,27 +124,34 @@ public class DubboHystrixCommand extends HystrixCommand<Result> {
                 .withCircuitBreakerSleepWindowInMilliseconds(hystrixConfig.getSleepWindowInMilliseconds())
                 .withCircuitBreakerErrorThresholdPercentage(hystrixConfig.getErrorThresholdPercentage())
                 .withCircuitBreakerRequestVolumeThreshold(hystrixConfig.getRequestVolumeThreshold())
-                .withExecutionTimeoutEnabled(hystrixConfig.isExecutionTimeoutEnabled())
+                .withExecutionTimeoutEnabled(hystrixConfig.hystrixTimeoutEnabled())
                 .withExecutionIsolationThreadInterruptOnTimeout(hystrixConfig.isThreadInterruptOnTimeout())
-                .withExecutionTimeoutInMilliseconds(hystrixConfig.getExecutionTimeoutInMilliseconds())
+                .withExecutionTimeoutInMilliseconds(hystrixConfig.hystrixTimeoutInMilliseconds())
                 .withFallbackIsolationSemaphoreMaxConcurrentRequests(hystrixConfig.getFallbackSemaphoreMaxConcurrentRequests())
                 .withExecutionIsolationStrategy(getIsolationStrategy(hystrixConfig))
-                .withExecutionIsolationSemaphoreMaxConcurrentRequests(hystrixConfig.getSemaphoreMaxConcurrentRequests());
+                .withExecutionIsolationSemaphoreMaxConcurrentRequests(hystrixConfig.hystrixSemaphoreMaxConcurrentRequests());
 
     }
 
     /**
-     * 默认使用信号量模式
+     * 设置线程池参数，隔离策略为THREAD时生效
+     *
+     * @param hystrixConfig
+     * @return
      */
     public static HystrixThreadPoolProperties.Setter hystrixThreadPoolPropertiesSetter(HystrixConfig hystrixConfig) {
         // 获取线程池配置
         return HystrixThreadPoolProperties
                 .Setter()
-                .withCoreSize(10)
-                .withAllowMaximumSizeToDivergeFromCoreSize(true)
-                .withMaximumSize(20)
-                .withMaxQueueSize(-1)
-                .withKeepAliveTimeMinutes(1);
+                .withCoreSize(hystrixConfig.getCoreSize())
+                .withAllowMaximumSizeToDivergeFromCoreSize(hystrixConfig.getAllowMaximumSizeToDivergeFromCoreSize())
+                .withMaximumSize(hystrixConfig.getMaximumSize())
+                .withMaxQueueSize(hystrixConfig.getMaxQueueSize())
+                .withQueueSizeRejectionThreshold(hystrixConfig.getQueueSizeRejectionThreshold())
+                .withKeepAliveTimeMinutes(hystrixConfig.getKeepAliveTimeMinutes())
+                .withMetricsRollingStatisticalWindowInMilliseconds(
+                        hystrixConfig.getRollingStatisticalWindowInMilliseconds())
+                .withMetricsRollingStatisticalWindowBuckets(hystrixConfig.getRollingStatisticalWindowBuckets());
     }
 
     /**
@@ -111,186 +161,204 @@ public class DubboHystrixCommand extends HystrixCommand<Result> {
      * @return
      */
     public static HystrixCommandProperties.ExecutionIsolationStrategy getIsolationStrategy(HystrixConfig config) {
-        String isolation = config.getExecutionIsolationStrategy();
-        if (!isolation.equalsIgnoreCase(HystrixConstants.THREAD)
-                && !isolation.equalsIgnoreCase(HystrixConstants.SEMAPHORE)) {
-            isolation = HystrixConstants.SEMAPHORE;
-        }
-        if (isolation.equalsIgnoreCase(HystrixConstants.THREAD)) {
+        // WORK_STEALING在hystrix中按THREAD执行，线程池由WorkStealingConcurrencyStrategy提供
+        String isolation = config.hystrixIsolationStrategy();
+        if (isolation.equals(HystrixConstants.THREAD)) {
             return HystrixCommandProperties.ExecutionIsolationStrategy.THREAD;
         } else {
             return HystrixCommandProperties.ExecutionIsolationStrategy.SEMAPHORE;
         }
     }
 
+    /**
+     * 不创建命令，按命令构造时的顺序初始化配置、统计、熔断器和线程池
+     *
+     * @param methodKey
+     * @param snapshot
+     */
+    public static void warmUp(MethodKey methodKey, ConfigSnapshot snapshot) {
+        HystrixConfig hystrixConfig = snapshot.getHystrixConfig();
+        HystrixCommandKey commandKey = methodKey.getHystrixCommandKey();
+        HystrixCommandGroupKey groupKey = methodKey.getHystrixGroupKey();
+        HystrixCommandProperties properties = HystrixPropertiesFactory.getCommandProperties(commandKey,
+                hystrixCommandPropertiesSetter(hystrixConfig));
+        // 没有配置线程池key时与hystrix一致，按组名使用线程池
+        HystrixThreadPoolKey threadPoolKey = threadPoolKey(snapshot);
+        if (null == threadPoolKey) {
+            threadPoolKey = HystrixThreadPoolKey.Factory.asKey(groupKey.name());
+        }
+        HystrixCommandMetrics metrics = HystrixCommandMetrics.getInstance(commandKey, groupKey, threadPoolKey,
+                properties);
+        if (properties.circuitBreakerEnabled().get()) {
+            HystrixCircuitBreaker.Factory.getInstance(commandKey, groupKey, properties, metrics);
+        }
+        if (null == THREAD_POOL_FACTORY) {
+            return;
+        }
+        try {
+            THREAD_POOL_FACTORY.invoke(null, threadPoolKey, hystrixThreadPoolPropertiesSetter(hystrixConfig));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static Method threadPoolFactory() {
+        try {
+            Method method = HystrixThreadPool.Factory.class.getDeclaredMethod("getInstance",
+                    HystrixThreadPoolKey.class, HystrixThreadPoolProperties.Setter.class);
+            method.setAccessible(true);
+            return method;
+        } catch (NoSuchMethodException e) {
+            log.warn("[HYSTRIX-SDK] hystrix thread pool factory not found, thread pool created on first call");
+            return null;
+        }
+    }
+
     @Override
     protected Result run() throws Exception {
-        String key = getKey();
-        HystrixModel model = config(key);
-        if (null == model) {
+        long start = System.nanoTime();
+        if (isExecutedInThread()) {
+            latencyMetrics.getQueueWait().record(start - createNanos);
+        }
+        try {
+            return doRun();
+        } finally {
+            latencyMetrics.getExecution().record(System.nanoTime() - start);
+        }
+    }
+
+    private Result doRun() {
+        if (null == snapshot) {
             log.info("[HYSTRIX-SDK]配置信息不存在");
             // 如果没有配置，继续走，但是如果调用抛出了异常达到阈值还是会触发熔断，只不过返回默认值
             return invoker.invoke(invocation);
         }
-        if (Objects.equals(HystrixConstants.OPEN, model.getDegrade())) {
-            return executeGroovy(model.getDegradeScript(), HystrixConstants.DEGRADE, key);
+        if (snapshot.isDegrade()) {
+            return executeScript(invocation, snapshot, HystrixConstants.DEGRADE);
         } else {
-            Result result = invoker.invoke(invocation);
             // 如果远程调用异常，抛出异常就会调用getFallback()方法去执行降级逻辑
-            if (result.hasException() && result.getException() instanceof RpcException
-                    && !((RpcException) result.getException()).isBiz()) {
-                throw new HystrixRuntimeException(HystrixRuntimeException.FailureType.COMMAND_EXCEPTION,
-                        DubboHystrixCommand.class, result.getException().getMessage(),
-                        result.getException(), null);
+            Result result = checkResult(invokeProvider());
+            if (snapshot.isLastGood()) {
+                LastGoodCache.put(methodKey, invocation, result, snapshot.getLastGoodMaxStaleMillis());
             }
-
             return result;
         }
     }
 
-    @Override
-    protected Result getFallback() {
-        log.error("come into fall back method,please check it!", getFailedExecutionException());
-        log.error("the execution exception is here!", getExecutionException());
-
-        String key = getKey();
-        HystrixModel model = config(key);
-        if (null == model) {
-            return new RpcResult();
-        }
-        Result result = executeGroovy(model.getFallbackScript(), HystrixConstants.FALLBACK, key);
-        // 为null说明触发了熔断
-        return result;
-    }
-
     /**
-     * 获取配置信息
+     * 调用提供者，消费端按配置摘除异常的提供者、发送对冲调用
      *
-     * @param key
      * @return
      */
-    private static HystrixModel config(String key) {
-        // TODO 获取配置内容（json内容）
-        String value = "";
-        if (StringUtils.isEmpty(value)) {
-            return null;
+    private Result invokeProvider() {
+        if (!Constants.CONSUMER_SIDE.equals(invoker.getUrl().getParameter(Constants.SIDE_KEY))) {
+            return invoker.invoke(invocation);
         }
+        HystrixConfig hystrixConfig = snapshot.getHystrixConfig();
+        if (!hystrixConfig.isOutlierEjectionEnabled()) {
+            return invoke(invoker);
+        }
+        OutlierDetector detector = OutlierDetector.getInstance(methodKey);
+        Invoker<?> target = detector.route(invoker);
+        boolean success = false;
         try {
-            HystrixModel hystrix = JSON.parseObject(value, HystrixModel.class);
-            return hystrix;
-        } catch (Exception e) {
-            log.error("[HYSTRIX-SDK]hystrixConfig to object fail", e);
+            Result result = invoke(target);
+            success = !isRemoteFailure(result);
+            return result;
+        } finally {
+            detector.record(target, success, hystrixConfig);
         }
-        return null;
     }
 
-    /**
-     * 组装key
-     * {interfaceName}.{method}#{参数数量}，如(interfaceName.method#0)
-     *
-     * @return
-     */
-    private String getKey() {
-        String method = invocation.getMethodName();
-        String interfaceName = invoker.getInterface().getName();
-        StringBuilder key = new StringBuilder(interfaceName + "." + method);
-        Class<?>[] clazz = invocation.getParameterTypes();
-        if (null == clazz || clazz.length <= 0) {
-            log.info("[HYSTRIX-SDK] KEY:[{}]", key.toString());
-            return key.toString();
-        }
-        for (int i = 0; i < clazz.length; i++) {
-
-            if (null == clazz[i]) {
-                continue;
-            }
-
-            if (0 == i) {
-                key = key.append(HystrixConstants.HASH_TAG).append(clazz[i].getSimpleName());
-                continue;
-            }
-
-            key.append(HystrixConstants.COMMA).append(clazz[i].getSimpleName());
+    private Result invoke(Invoker<?> target) {
+        if (target != invoker) {
+            return ProviderRegistry.reroute(() -> doInvoke(target));
         }
+        return doInvoke(target);
+    }
 
-        log.info("[HYSTRIX-SDK] KEY:[{}]", key.toString());
-        return key.toString();
+    private Result doInvoke(Invoker<?> target) {
+        return snapshot.isHedged() ? HedgedInvoker.getInstance(methodKey).invoke(target, invocation, snapshot)
+                : target.invoke(invocation);
     }
 
     /**
-     * 获取key
+     * 远程调用异常（非业务异常）时抛出HystrixRuntimeException，计入熔断统计并走降级逻辑
      *
-     * @param method
-     * @param interfaceName
-     * @param clazz
-     *             invocation参数类型
+     * @param result
      * @return
      */
-    private static String getKey(String method, String interfaceName, Class<?>[] clazz) {
-        StringBuilder key = new StringBuilder(interfaceName + "." + method);
-        if (null == clazz || clazz.length <= 0) {
-            log.info("[HYSTRIX-SDK] Key:[{}]", key.toString());
-            return key.toString();
+    static Result checkResult(Result result) {
+        if (isRemoteFailure(result)) {
+            throw new HystrixRuntimeException(HystrixRuntimeException.FailureType.COMMAND_EXCEPTION,
+                    DubboHystrixCommand.class, result.getException().getMessage(),
+                    result.getException(), null);
         }
-        for (int i = 0; i < clazz.length; i++) {
-
-            if (null == clazz[i]) {
-                continue;
-            }
-
-            if (0 == i) {
-                key = key.append(HystrixConstants.HASH_TAG).append(clazz[i].getSimpleName());
-                continue;
-            }
-            key.append(HystrixConstants.COMMA).append(clazz[i].getSimpleName());
-        }
-
-        log.info("[HYSTRIX-SDK] Key:[{}]", key.toString());
-        return key.toString();
+        return result;
     }
 
-    private static String getCommandKey(String method, Class<?>[] clazz) {
-        StringBuilder key = new StringBuilder(method);
-        if (null == clazz || clazz.length <= 0) {
-            log.info("[HYSTRIX-SDK]CommondKey:[{}]", key.toString());
-            return key.toString();
-        }
-        for (int i = 0; i < clazz.length; i++) {
+    /**
+     * @param result
+     * @return 是否远程调用异常（非业务异常）
+     */
+    static boolean isRemoteFailure(Result result) {
+        return result.hasException() && result.getException() instanceof RpcException
+                && !((RpcException) result.getException()).isBiz();
+    }
 
-            if (null == clazz[i]) {
-                continue;
-            }
+    @Override
+    protected Result getFallback() {
+        log.error("come into fall back method,please check it!", getFailedExecutionException());
+        log.error("the execution exception is here!", getExecutionException());
 
-            if (0 == i) {
-                key = key.append(HystrixConstants.HASH_TAG).append(clazz[i].getSimpleName());
-                continue;
+        if (null == snapshot) {
+            return new RpcResult();
+        }
+        if (snapshot.isLastGood() && (isResponseShortCircuited() || isResponseTimedOut())) {
+            Result lastGood = LastGoodCache.get(methodKey, invocation, snapshot.getLastGoodMaxStaleMillis());
+            if (null != lastGood) {
+                return lastGood;
             }
-            key.append(HystrixConstants.COMMA).append(clazz[i].getSimpleName());
         }
-
-        log.info("[HYSTRIX-SDK]CommondKey:[{}]", key.toString());
-        return key.toString();
+        long start = System.nanoTime();
+        Result result = executeScript(invocation, snapshot, HystrixConstants.FALLBACK);
+        latencyMetrics.getFallback().record(System.nanoTime() - start);
+        // 为null说明触发了熔断
+        return result;
     }
 
-    private Result executeGroovy(String script, String type, String key) {
+    /**
+     * 使用配置的脚本引擎执行降级/熔断脚本
+     *
+     * @param invocation
+     * @param snapshot
+     * @param type
+     *             {@link HystrixConstants#DEGRADE}或{@link HystrixConstants#FALLBACK}
+     * @return 脚本为空、编译失败、等待编译超时或执行失败时返回空结果
+     */
+    public static Result executeScript(Invocation invocation, ConfigSnapshot snapshot, String type) {
+        ScriptHandle handle = HystrixConstants.DEGRADE.equals(type) ? snapshot.getDegradeHandle()
+                : snapshot.getFallbackHandle();
 
-        if (StringUtils.isEmpty(script)) {
-            log.info("[HYSTRIX-SDK]groovy脚本为空.");
+        if (null == handle) {
+            log.info("[HYSTRIX-SDK]降级脚本为空.");
             return new RpcResult();
         }
 
-        Object[] args = invocation.getArguments();
-        GroovyObject cacheInstance = GroovyCacheUtil.getValue(key + HystrixConstants.H_LINE + type);
+        // 首次编译未完成时最多等待命令的超时时间
+        FallbackHandler handler = handle.get(snapshot.getHystrixConfig().hystrixTimeoutInMilliseconds());
 
-        if (null == cacheInstance) {
+        if (null == handler) {
             return new RpcResult();
         }
         try {
-            Object result = cacheInstance.invokeMethod(FALLBACK, args);
+            Object result = handler.fallback(invocation.getArguments());
             return new RpcResult(result);
 
         } catch (Exception e) {
-            log.error("[HYSTRIX-SDK]Groovy newInstance Exception", e);
+            log.error("[HYSTRIX-SDK]script execute Exception, key:{}", snapshot.getKey(), e);
         }
 
         return new RpcResult();
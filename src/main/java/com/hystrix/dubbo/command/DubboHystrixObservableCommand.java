@@ -0,0 +1,171 @@
+package com.hystrix.dubbo.command;
+
+import com.alibaba.dubbo.remoting.exchange.ResponseCallback;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcContext;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.alibaba.dubbo.rpc.protocol.dubbo.FutureAdapter;
+import com.hystrix.dubbo.cache.LastGoodCache;
+import com.hystrix.dubbo.constants.HystrixConstants;
+import com.hystrix.dubbo.metrics.CommandLatencyMetrics;
+import com.hystrix.dubbo.model.ConfigSnapshot;
+import com.hystrix.dubbo.model.HystrixConfig;
+import com.hystrix.dubbo.model.MethodKey;
+import com.netflix.hystrix.HystrixObservableCommand;
+import lombok.extern.slf4j.Slf4j;
+import rx.Observable;
+import rx.Subscriber;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.Future;
+
+/**
+ * DubboHystrixObservableCommand
+ * 异步调用使用的命令，dubbo的ResponseFuture完成时回调结果，不阻塞调用线程
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@Slf4j
+public class DubboHystrixObservableCommand extends HystrixObservableCommand<Result> {
+
+    private static final Field THREAD_POOL_KEY = setterField("threadPoolKey");
+    private static final Field THREAD_POOL_PROPERTIES = setterField("threadPoolPropertiesDefaults");
+
+    private final Invoker<?> invoker;
+    private final Invocation invocation;
+    private final MethodKey methodKey;
+    /**
+     * 创建命令时的配置快照，为null说明没有配置
+     */
+    private final ConfigSnapshot snapshot;
+    private final CommandLatencyMetrics latencyMetrics;
+
+    public DubboHystrixObservableCommand(Invoker<?> invoker, Invocation invocation, MethodKey methodKey,
+                                         ConfigSnapshot snapshot) {
+        super(hystrixObservableSetter(methodKey, snapshot));
+        this.invoker = invoker;
+        this.invocation = invocation;
+        this.methodKey = methodKey;
+        this.snapshot = snapshot;
+        this.latencyMetrics = CommandLatencyMetrics.getInstance(methodKey);
+    }
+
+    /**
+     * 与同步命令使用相同的命令属性、线程池key及线程池属性
+     *
+     * @param methodKey
+     * @param snapshot
+     * @return
+     * @see DubboHystrixCommand#hystrixCommandPropertiesSetter(HystrixConfig)
+     */
+    private static Setter hystrixObservableSetter(MethodKey methodKey, ConfigSnapshot snapshot) {
+        HystrixConfig hystrixConfig = null == snapshot ? DubboHystrixCommand.DEFAULT_CONFIG : snapshot.getHystrixConfig();
+
+        Setter setter = Setter
+                .withGroupKey(methodKey.getHystrixGroupKey())
+                .andCommandKey(methodKey.getHystrixCommandKey())
+                .andCommandPropertiesDefaults(DubboHystrixCommand.hystrixCommandPropertiesSetter(hystrixConfig));
+        // HystrixObservableCommand.Setter没有公开线程池的设置方法，构造命令时读取这两个字段
+        set(THREAD_POOL_KEY, setter, DubboHystrixCommand.threadPoolKey(snapshot));
+        set(THREAD_POOL_PROPERTIES, setter, DubboHystrixCommand.hystrixThreadPoolPropertiesSetter(hystrixConfig));
+        return setter;
+    }
+
+    private static Field setterField(String name) {
+        try {
+            Field field = Setter.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException e) {
+            log.warn("[HYSTRIX-SDK] observable command setter has no field {}, thread pool config ignored", name);
+            return null;
+        }
+    }
+
+    private static void set(Field field, Setter setter, Object value) {
+        if (null == field || null == value) {
+            return;
+        }
+        try {
+            field.set(setter, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    protected Observable<Result> construct() {
+        if (null != snapshot && snapshot.isDegrade()) {
+            return Observable.defer(() -> Observable.just(DubboHystrixCommand.executeScript(invocation, snapshot,
+                    HystrixConstants.DEGRADE)));
+        }
+        return Observable.<Result>create(this::invokeAsync);
+    }
+
+    private void invokeAsync(Subscriber<? super Result> subscriber) {
+        long start = System.nanoTime();
+        try {
+            Result result = invoker.invoke(invocation);
+            Future<?> future = RpcContext.getContext().getFuture();
+            if (!(future instanceof FutureAdapter)) {
+                // oneway或本地调用，结果已同步返回
+                latencyMetrics.getExecution().record(System.nanoTime() - start);
+                emit(subscriber, result);
+                return;
+            }
+            ((FutureAdapter<?>) future).getFuture().setCallback(new ResponseCallback() {
+                @Override
+                public void done(Object response) {
+                    latencyMetrics.getExecution().record(System.nanoTime() - start);
+                    emit(subscriber, (Result) response);
+                }
+
+                @Override
+                public void caught(Throwable exception) {
+                    latencyMetrics.getExecution().record(System.nanoTime() - start);
+                    subscriber.onError(exception);
+                }
+            });
+        } catch (Exception e) {
+            subscriber.onError(e);
+        }
+    }
+
+    private void emit(Subscriber<? super Result> subscriber, Result result) {
+        try {
+            // 如果远程调用异常，抛出异常就会调用resumeWithFallback()方法去执行降级逻辑
+            Result checked = DubboHystrixCommand.checkResult(result);
+            if (null != snapshot && snapshot.isLastGood()) {
+                LastGoodCache.put(methodKey, invocation, checked, snapshot.getLastGoodMaxStaleMillis());
+            }
+            subscriber.onNext(checked);
+            subscriber.onCompleted();
+        } catch (Exception e) {
+            subscriber.onError(e);
+        }
+    }
+
+    @Override
+    protected Observable<Result> resumeWithFallback() {
+        log.error("come into fall back method,please check it!", getFailedExecutionException());
+
+        return Observable.defer(() -> {
+            if (null == snapshot) {
+                return Observable.just(new RpcResult());
+            }
+            if (snapshot.isLastGood() && (isResponseShortCircuited() || isResponseTimedOut())) {
+                Result lastGood = LastGoodCache.get(methodKey, invocation, snapshot.getLastGoodMaxStaleMillis());
+                if (null != lastGood) {
+                    return Observable.just(lastGood);
+                }
+            }
+            long start = System.nanoTime();
+            Result result = DubboHystrixCommand.executeScript(invocation, snapshot, HystrixConstants.FALLBACK);
+            latencyMetrics.getFallback().record(System.nanoTime() - start);
+            return Observable.just(result);
+        });
+    }
+}
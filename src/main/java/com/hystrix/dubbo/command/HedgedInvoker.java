@@ -0,0 +1,277 @@
+package com.hystrix.dubbo.command;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.remoting.exchange.ResponseCallback;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcContext;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.protocol.dubbo.FutureAdapter;
+import com.hystrix.dubbo.cluster.OutlierDetector;
+import com.hystrix.dubbo.cluster.ProviderRegistry;
+import com.hystrix.dubbo.metrics.CommandLatencyMetrics;
+import com.hystrix.dubbo.model.ConfigSnapshot;
+import com.hystrix.dubbo.model.MethodKey;
+import com.netflix.hystrix.HystrixCommandKey;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HedgedInvoker
+ * 消费端幂等方法的对冲调用：主调用在耗时分位数内没有返回时，向另一个提供者发送一次备份调用，取先返回的结果；
+ * 备份调用数量受预算限制，不超过调用量的hedgeBudgetPercent
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public final class HedgedInvoker {
+
+    private static final ConcurrentMap<MethodKey, HedgedInvoker> INVOKERS = new ConcurrentHashMap<>(64);
+
+    /**
+     * 计算分位数需要的最少样本数
+     */
+    private static final long MIN_SAMPLES = 100;
+    /**
+     * 对冲延迟的刷新周期
+     */
+    private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * 一次备份调用消耗的预算
+     */
+    private static final long HEDGE_COST = 1000;
+    /**
+     * 预算上限，最多连续10次备份调用
+     */
+    private static final long MAX_BUDGET = 10 * HEDGE_COST;
+
+    private final MethodKey methodKey;
+    private final String groupKey;
+    private final HystrixCommandKey commandKey;
+    private final CommandLatencyMetrics latencyMetrics;
+    private final AtomicLong budget = new AtomicLong();
+    private final LongAdder hedged = new LongAdder();
+    /**
+     * 需要对冲但没有可用的备份提供者的次数
+     */
+    private final LongAdder noBackup = new LongAdder();
+    /**
+     * 对冲延迟，纳秒，小于0说明样本不足
+     */
+    private volatile long delayNanos = -1;
+    private final AtomicLong nextRefresh = new AtomicLong(System.nanoTime());
+
+    private HedgedInvoker(MethodKey methodKey) {
+        this.methodKey = methodKey;
+        this.groupKey = methodKey.getGroupKey();
+        this.commandKey = methodKey.getHystrixCommandKey();
+        this.latencyMetrics = CommandLatencyMetrics.getInstance(methodKey);
+    }
+
+    public static HedgedInvoker getInstance(MethodKey methodKey) {
+        HedgedInvoker hedgedInvoker = INVOKERS.get(methodKey);
+        if (null != hedgedInvoker) {
+            return hedgedInvoker;
+        }
+        return INVOKERS.computeIfAbsent(methodKey, key -> new HedgedInvoker(methodKey));
+    }
+
+    public static Collection<HedgedInvoker> getInstances() {
+        return Collections.unmodifiableCollection(INVOKERS.values());
+    }
+
+    /**
+     * 对冲调用，结果与同步调用invoker.invoke一致，远程调用失败时抛出RpcException
+     *
+     * @param invoker
+     * @param invocation
+     * @param snapshot
+     * @return
+     */
+    public Result invoke(Invoker<?> invoker, Invocation invocation, ConfigSnapshot snapshot) {
+        ProviderRegistry.register(invoker);
+        addBudget(snapshot.getModel().getHedgeBudgetPercent());
+        long delay = delayNanos(snapshot.getModel().getHedgeDelayPercentile());
+        if (delay < 0) {
+            return invoker.invoke(invocation);
+        }
+
+        Race race = new Race();
+        Result syncResult = invokeAsync(invoker, invocation, race);
+        if (null != syncResult) {
+            return syncResult;
+        }
+        int timeout = invoker.getUrl().getMethodParameter(invocation.getMethodName(), Constants.TIMEOUT_KEY,
+                Constants.DEFAULT_TIMEOUT);
+        long start = System.nanoTime();
+        try {
+            try {
+                return race.result.get(delay, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (!race.result.isDone()) {
+                    Invoker<?> backup = selectBackup(invoker, snapshot);
+                    if (null == backup) {
+                        noBackup.increment();
+                    } else if (tryAcquireBudget()) {
+                        hedged.increment();
+                        race.pending.incrementAndGet();
+                        hedge(backup, invocation, race);
+                    }
+                }
+            }
+            // dubbo超时后回调caught，这里多等一会儿只是兜底
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeout) - (System.nanoTime() - start);
+            return race.result.get(Math.max(remaining, 0) + TimeUnit.MILLISECONDS.toNanos(100), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RpcException ? (RpcException) e.getCause() : new RpcException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RpcException(RpcException.TIMEOUT_EXCEPTION, "hedged invoke timeout, method:"
+                    + invocation.getMethodName() + ", timeout:" + timeout + "ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RpcException(e);
+        }
+    }
+
+    /**
+     * 选择备份调用的提供者，启用摘除时跳过被摘除的提供者
+     */
+    private Invoker<?> selectBackup(Invoker<?> invoker, ConfigSnapshot snapshot) {
+        if (!snapshot.getHystrixConfig().isOutlierEjectionEnabled()) {
+            return ProviderRegistry.selectOther(invoker);
+        }
+        OutlierDetector detector = OutlierDetector.getInstance(methodKey);
+        return ProviderRegistry.selectOther(invoker, candidate -> !detector.isEjected(candidate.getUrl().getAddress()));
+    }
+
+    private static void hedge(Invoker<?> backup, Invocation invocation, Race race) {
+        try {
+            Result syncResult = ProviderRegistry.reroute(() -> invokeAsync(backup, invocation, race));
+            if (null != syncResult) {
+                race.result.complete(syncResult);
+            }
+        } catch (RuntimeException e) {
+            if (race.pending.decrementAndGet() <= 0) {
+                race.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 以异步方式调用，结果写入race
+     *
+     * @return 提供者不支持异步（如本地调用）时直接返回结果，否则返回null
+     */
+    private static Result invokeAsync(Invoker<?> invoker, Invocation invocation, Race race) {
+        RpcInvocation asyncInvocation = new RpcInvocation(invocation, invoker);
+        asyncInvocation.setAttachment(Constants.ASYNC_KEY, Boolean.TRUE.toString());
+        RpcContext context = RpcContext.getContext();
+        Result result;
+        Future<?> future;
+        try {
+            result = invoker.invoke(asyncInvocation);
+            future = context.getFuture();
+        } finally {
+            context.setFuture(null);
+        }
+        if (!(future instanceof FutureAdapter)) {
+            return result;
+        }
+        ((FutureAdapter<?>) future).getFuture().setCallback(new ResponseCallback() {
+            @Override
+            public void done(Object response) {
+                race.result.complete((Result) response);
+            }
+
+            @Override
+            public void caught(Throwable exception) {
+                // 还有调用没有返回时等待其结果
+                if (race.pending.decrementAndGet() <= 0) {
+                    race.result.completeExceptionally(exception instanceof com.alibaba.dubbo.remoting.TimeoutException
+                            ? new RpcException(RpcException.TIMEOUT_EXCEPTION, exception.getMessage(), exception)
+                            : new RpcException(RpcException.NETWORK_EXCEPTION, exception.getMessage(), exception));
+                }
+            }
+        });
+        return null;
+    }
+
+    private long delayNanos(double percentile) {
+        long now = System.nanoTime();
+        long next = nextRefresh.get();
+        if (now - next >= 0 && nextRefresh.compareAndSet(next, now + REFRESH_NANOS)) {
+            long micros = latencyMetrics.getExecution().rollingPercentileMicros(percentile, MIN_SAMPLES);
+            delayNanos = micros < 0 ? -1 : TimeUnit.MICROSECONDS.toNanos(micros);
+        }
+        return delayNanos;
+    }
+
+    private void addBudget(int budgetPercent) {
+        long add = budgetPercent * HEDGE_COST / 100;
+        for (; ; ) {
+            long current = budget.get();
+            if (current >= MAX_BUDGET || budget.compareAndSet(current, Math.min(MAX_BUDGET, current + add))) {
+                return;
+            }
+        }
+    }
+
+    private boolean tryAcquireBudget() {
+        for (; ; ) {
+            long current = budget.get();
+            if (current < HEDGE_COST) {
+                return false;
+            }
+            if (budget.compareAndSet(current, current - HEDGE_COST)) {
+                return true;
+            }
+        }
+    }
+
+    public String getGroupKey() {
+        return groupKey;
+    }
+
+    public HystrixCommandKey getCommandKey() {
+        return commandKey;
+    }
+
+    /**
+     * @return 累计备份调用次数
+     */
+    public long getHedged() {
+        return hedged.sum();
+    }
+
+    /**
+     * @return 累计没有可用备份提供者的次数
+     */
+    public long getNoBackup() {
+        return noBackup.sum();
+    }
+
+    /**
+     * 一次对冲调用中先返回的结果
+     */
+    private static final class Race {
+
+        private final CompletableFuture<Result> result = new CompletableFuture<>();
+        /**
+         * 没有返回的调用数
+         */
+        private final AtomicInteger pending = new AtomicInteger(1);
+    }
+}
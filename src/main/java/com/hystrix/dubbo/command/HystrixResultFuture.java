@@ -0,0 +1,87 @@
+package com.hystrix.dubbo.command;
+
+import com.alibaba.dubbo.remoting.RemotingException;
+import com.alibaba.dubbo.remoting.exchange.ResponseCallback;
+import com.alibaba.dubbo.remoting.exchange.ResponseFuture;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.alibaba.dubbo.rpc.protocol.dubbo.FutureAdapter;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * HystrixResultFuture
+ * 放入RpcContext的future，get()返回的是熔断/降级处理后的结果；
+ * 继承dubbo的FutureAdapter，FutureFilter只给FutureAdapter注册onreturn/onthrow事件回调，命令完成后回调照常触发
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class HystrixResultFuture extends FutureAdapter<Object> {
+
+    public HystrixResultFuture() {
+        super(new CompletableResponse());
+    }
+
+    public void complete(Result result) {
+        ((CompletableResponse) getFuture()).future.complete(result);
+    }
+
+    /**
+     * 命令失败（如降级也失败）时以带异常的结果完成，get()抛出异常，事件回调走onthrow
+     *
+     * @param throwable
+     */
+    public void completeExceptionally(Throwable throwable) {
+        complete(new RpcResult(throwable));
+    }
+
+    /**
+     * 由命令结果完成的ResponseFuture，只以Result完成
+     */
+    private static final class CompletableResponse implements ResponseFuture {
+
+        private final CompletableFuture<Result> future = new CompletableFuture<>();
+
+        @Override
+        public Object get() throws RemotingException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RemotingException((InetSocketAddress) null, null, e);
+            } catch (ExecutionException e) {
+                throw new RemotingException((InetSocketAddress) null, null, e.getCause());
+            }
+        }
+
+        @Override
+        public Object get(int timeoutInMillis) throws RemotingException {
+            try {
+                return future.get(timeoutInMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                throw new com.alibaba.dubbo.remoting.TimeoutException(false, null, null,
+                        "waiting hystrix result timeout, timeout:" + timeoutInMillis + "ms");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RemotingException((InetSocketAddress) null, null, e);
+            } catch (ExecutionException e) {
+                throw new RemotingException((InetSocketAddress) null, null, e.getCause());
+            }
+        }
+
+        @Override
+        public void setCallback(ResponseCallback callback) {
+            future.thenAccept(callback::done);
+        }
+
+        @Override
+        public boolean isDone() {
+            return future.isDone();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.hystrix.dubbo.command;
+
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.hystrix.dubbo.model.CallKey;
+import com.hystrix.dubbo.model.MethodKey;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * SingleFlight
+ * 同一方法、参数相同的并发调用只执行一次，其余调用等待并共用同一个Result；
+ * 只有真正执行的调用经过hystrix命令，信号量和熔断统计只计一次；
+ * 等待超过命令超时时间仍未完成时不再等待，自己执行一次
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@Slf4j
+public final class SingleFlight {
+
+    private static final ConcurrentMap<CallKey, CompletableFuture<Result>> IN_FLIGHT = new ConcurrentHashMap<>(256);
+
+    private SingleFlight() {
+    }
+
+    /**
+     * @param methodKey
+     * @param invocation
+     * @param waitMillis
+     *             等待执行中的调用的最长时间，一般为命令的超时时间
+     * @param call
+     *             实际执行的调用
+     * @return 执行中的调用的结果，或本次执行的结果
+     */
+    public static Result execute(MethodKey methodKey, Invocation invocation, long waitMillis, Supplier<Result> call) {
+        CompletableFuture<Result> inFlight = IN_FLIGHT.get(new CallKey(methodKey, invocation.getArguments()));
+        CallKey key = null;
+        CompletableFuture<Result> future = null;
+        if (null == inFlight) {
+            // 放入map的key复制参数，执行期间调用方修改参数不影响其它调用的查找
+            key = CallKey.copyOf(methodKey, invocation.getArguments());
+            future = new CompletableFuture<>();
+            inFlight = IN_FLIGHT.putIfAbsent(key, future);
+        }
+        if (null != inFlight) {
+            Result result = await(inFlight, waitMillis);
+            if (null != result) {
+                return result;
+            }
+            // 执行中的调用卡住时不再等待，自己执行，不替换执行中的调用
+            log.warn("[HYSTRIX-SDK] single flight wait timeout, key:{}, wait:{}ms", methodKey.getConfigKey(),
+                    waitMillis);
+            return call.get();
+        }
+        try {
+            Result result = call.get();
+            // 先移除再完成，完成后到达的调用重新执行
+            IN_FLIGHT.remove(key, future);
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            IN_FLIGHT.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * @return 执行中的调用的结果，等待超时返回null
+     */
+    private static Result await(CompletableFuture<Result> inFlight, long waitMillis) {
+        try {
+            return inFlight.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RpcException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RpcException(cause);
+        }
+    }
+}
@@ -23,6 +23,54 @@ public class HystrixConstants {
      * 信号量
      */
     public static final String SEMAPHORE = "SEMAPHORE";
+    /**
+     * 共用work-stealing线程池 + 每个线程池key的permit配额，hystrix中按THREAD处理
+     */
+    public static final String WORK_STEALING = "WORK_STEALING";
+    /**
+     * WORK_STEALING隔离策略的线程池key前缀
+     */
+    public static final String WORK_STEALING_POOL_PREFIX = "ws:";
+    /**
+     * 线程池粒度：所有方法共用一个线程池
+     */
+    public static final String POOL_SHARED = "SHARED";
+    /**
+     * 线程池粒度：同一个接口的方法共用一个线程池
+     */
+    public static final String POOL_INTERFACE = "INTERFACE";
+    /**
+     * 线程池粒度：每个方法独立线程池
+     */
+    public static final String POOL_METHOD = "METHOD";
+    /**
+     * 共用线程池的名称
+     */
+    public static final String SHARED_POOL_KEY = "hystrix-dubbo-shared";
+    /**
+     * 并发限制：固定的semaphoreMaxConcurrentRequests
+     */
+    public static final String LIMIT_FIXED = "FIXED";
+    /**
+     * 并发限制：根据调用耗时自动调整
+     */
+    public static final String LIMIT_GRADIENT = "GRADIENT";
+    /**
+     * 调用优先级的attachment，0最高
+     */
+    public static final String PRIORITY_KEY = "hystrix.priority";
+    /**
+     * 默认脚本引擎
+     */
+    public static final String SCRIPT_ENGINE_GROOVY = "groovy";
+    /**
+     * 脚本编译模式：动态编译，通过invokeMethod调用fallback方法
+     */
+    public static final String SCRIPT_DYNAMIC = "DYNAMIC";
+    /**
+     * 脚本编译模式：静态编译，脚本类实现FallbackHandler接口
+     */
+    public static final String SCRIPT_STATIC = "STATIC";
     /**
      * 降级标识
      */
@@ -1,20 +1,32 @@
 package com.hystrix.dubbo.filter;
 
 import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
 import com.alibaba.dubbo.common.extension.Activate;
 import com.alibaba.dubbo.rpc.Filter;
 import com.alibaba.dubbo.rpc.Invocation;
 import com.alibaba.dubbo.rpc.Invoker;
 import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcContext;
 import com.alibaba.dubbo.rpc.RpcException;
-import com.alibaba.fastjson.JSON;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.alibaba.dubbo.rpc.support.RpcUtils;
+import com.hystrix.dubbo.cluster.ProviderRegistry;
+import com.hystrix.dubbo.command.DubboHystrixCollapser;
 import com.hystrix.dubbo.command.DubboHystrixCommand;
+import com.hystrix.dubbo.command.DubboHystrixObservableCommand;
+import com.hystrix.dubbo.command.HystrixResultFuture;
+import com.hystrix.dubbo.command.SingleFlight;
 import com.hystrix.dubbo.constants.HystrixConstants;
-import com.hystrix.dubbo.model.HystrixModel;
+import com.hystrix.dubbo.limit.AdaptiveConcurrencyLimiter;
+import com.hystrix.dubbo.limit.PriorityLoadShedder;
+import com.hystrix.dubbo.model.ConfigSnapshot;
+import com.hystrix.dubbo.model.HystrixConfig;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang.StringUtils;
 
-import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * DubboHystrixFilter
@@ -28,50 +40,224 @@ public class DubboHystrixFilter implements Filter {
 
     @Override
     public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        // 未启用的方法只有一次key解析和一次volatile读，不拼接字符串、不打日志、不分配对象
+        MethodKey methodKey = MethodKeyRegistry.resolve(invoker, invocation);
 
-        String method = invocation.getMethodName();
-        String interfaceName = invoker.getInterface().getName();
-        String key = interfaceName + "." + method;
-
-        HystrixModel hystrixModel = config(invocation.getParameterTypes(), key);
+        ConfigSnapshot snapshot = methodKey.getSnapshot();
         // 单接口开关判断
-        if (null == hystrixModel || Objects.equals(HystrixConstants.UNENABLE, hystrixModel.getEnable())) {
+        if (null == snapshot || !snapshot.isEnabled()) {
+            return invoker.invoke(invocation);
+        } else if (ProviderRegistry.isRerouting()) {
+            // 摘除或对冲另选的提供者已在外层命令中调用，不再重复执行
             return invoker.invoke(invocation);
+        } else if (null != snapshot.getRateLimiter() && !snapshot.getRateLimiter().tryAcquire()) {
+            return reject(invoker, invocation, snapshot);
+        } else if (isAsyncConsumer(invoker, invocation)) {
+            return invokeAsync(invoker, invocation, methodKey, snapshot);
+        } else if (isCollapsible(invoker, invocation, snapshot)) {
+            return invokeCollapsed(invoker, invocation, methodKey, snapshot);
+        } else if (snapshot.isSingleFlight()) {
+            return SingleFlight.execute(methodKey, invocation,
+                    snapshot.getHystrixConfig().hystrixTimeoutInMilliseconds(),
+                    () -> execute(invoker, invocation, methodKey, snapshot));
         } else {
-            DubboHystrixCommand command = new DubboHystrixCommand(invoker, invocation);
-            return command.execute();
+            return execute(invoker, invocation, methodKey, snapshot);
         }
 
     }
 
-    private static HystrixModel config(Class<?>[] clazz, String key) {
+    /**
+     * 被限流的调用执行熔断脚本，异步调用通过已完成的future返回
+     *
+     * @param invoker
+     * @param invocation
+     * @param snapshot
+     * @return
+     */
+    private static Result reject(Invoker<?> invoker, Invocation invocation, ConfigSnapshot snapshot) {
+        Result result = DubboHystrixCommand.executeScript(invocation, snapshot, HystrixConstants.FALLBACK);
+        if (!isAsyncConsumer(invoker, invocation)) {
+            return result;
+        }
+        HystrixResultFuture future = new HystrixResultFuture();
+        future.complete(result);
+        RpcContext.getContext().setFuture(future);
+        return new RpcResult();
+    }
 
-        StringBuilder finalKey = new StringBuilder(key);
-            if (null != clazz && clazz.length > 0) {
-                for (int i = 0; i < clazz.length; i++) {
-                    if (null == clazz[i]) {
-                        continue;
-                    }
-                    if (0 == i) {
-                        finalKey = finalKey.append(HystrixConstants.HASH_TAG).append(clazz[i].getSimpleName());
-                        continue;
-                    }
-                    finalKey.append(HystrixConstants.COMMA).append(clazz[i].getSimpleName());
-                }
-            }
-            log.info("[HYSTRIX-SDK] CommondKey:[{}]", finalKey.toString());
-            // TODO 获取配置内容（json内容）
-            String value = "";
-            if (StringUtils.isEmpty(value)) {
-                return null;
+    /**
+     * 同步执行命令，依次按优先级和自适应并发数限制
+     *
+     * @param invoker
+     * @param invocation
+     * @param methodKey
+     * @param snapshot
+     * @return
+     */
+    private static Result execute(Invoker<?> invoker, Invocation invocation, MethodKey methodKey,
+                                  ConfigSnapshot snapshot) {
+        return prioritized(invocation, methodKey, snapshot, () -> executeLimited(invoker, invocation, methodKey,
+                snapshot));
+    }
+
+    /**
+     * 打开优先级时先按优先级占用并发数，超过该优先级的上限时执行熔断脚本
+     *
+     * @param invocation
+     * @param methodKey
+     * @param snapshot
+     * @param call
+     *             占用成功后的调用
+     * @return
+     */
+    private static Result prioritized(Invocation invocation, MethodKey methodKey, ConfigSnapshot snapshot,
+                                      Supplier<Result> call) {
+        HystrixConfig config = snapshot.getHystrixConfig();
+        if (!config.isPriorityEnabled()) {
+            return call.get();
+        }
+        int priority = PriorityLoadShedder.priority(invocation, config);
+        int capacity = config.isAdaptiveConcurrency()
+                ? AdaptiveConcurrencyLimiter.getInstance(methodKey, config).getLimit() : config.priorityCapacity();
+        PriorityLoadShedder shedder = PriorityLoadShedder.getInstance(methodKey);
+        if (!shedder.tryAcquire(priority, capacity, config.priorityThreshold(priority))) {
+            return DubboHystrixCommand.executeScript(invocation, snapshot, HystrixConstants.FALLBACK);
+        }
+        try {
+            return call.get();
+        } finally {
+            shedder.release();
+        }
+    }
+
+    /**
+     * GRADIENT模式下先占用自适应并发数，超过并发数时执行熔断脚本
+     *
+     * @param invoker
+     * @param invocation
+     * @param methodKey
+     * @param snapshot
+     * @return
+     */
+    private static Result executeLimited(Invoker<?> invoker, Invocation invocation, MethodKey methodKey,
+                                         ConfigSnapshot snapshot) {
+        if (!snapshot.getHystrixConfig().isAdaptiveConcurrency()) {
+            return new DubboHystrixCommand(invoker, invocation, methodKey, snapshot).execute();
+        }
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.getInstance(methodKey,
+                snapshot.getHystrixConfig());
+        if (!limiter.tryAcquire()) {
+            return DubboHystrixCommand.executeScript(invocation, snapshot, HystrixConstants.FALLBACK);
+        }
+        DubboHystrixCommand command = new DubboHystrixCommand(invoker, invocation, methodKey, snapshot);
+        long start = System.nanoTime();
+        long rtt = -1;
+        boolean dropped = true;
+        try {
+            Result result = command.execute();
+            // 熔断短路、信号量拒绝没有真正调用，不计入耗时
+            if (command.isSuccessfulExecution() || command.isFailedExecution() || command.isResponseTimedOut()) {
+                rtt = System.nanoTime() - start;
             }
-            try {
-                HystrixModel hystrix = JSON.parseObject(value, HystrixModel.class);
-                log.info("[HYSTRIX-SDK][MODEL] is {}, str {}", hystrix, value);
-                return hystrix;
-            } catch (Exception e) {
-                log.error("hystrixConfig to object fail", e);
+            dropped = command.isResponseTimedOut();
+            return result;
+        } finally {
+            limiter.release(rtt, dropped, snapshot.getHystrixConfig());
+        }
+    }
+
+    /**
+     * 消费端的异步调用
+     *
+     * @param invoker
+     * @param invocation
+     * @return
+     */
+    private static boolean isAsyncConsumer(Invoker<?> invoker, Invocation invocation) {
+        URL url = invoker.getUrl();
+        return Constants.CONSUMER_SIDE.equals(url.getParameter(Constants.SIDE_KEY))
+                && RpcUtils.isAsync(url, invocation);
+    }
+
+    /**
+     * 消费端同步调用、配置了批量方法、只有一个参数且未手动降级时合并请求
+     *
+     * @param invoker
+     * @param invocation
+     * @param snapshot
+     * @return
+     */
+    private static boolean isCollapsible(Invoker<?> invoker, Invocation invocation, ConfigSnapshot snapshot) {
+        return snapshot.isBatchable() && !snapshot.isDegrade()
+                && null != invocation.getArguments() && invocation.getArguments().length == 1
+                && Constants.CONSUMER_SIDE.equals(invoker.getUrl().getParameter(Constants.SIDE_KEY));
+    }
+
+    /**
+     * 合并调用，与未合并的同步调用一样按优先级和自适应并发数限制每个单个调用；
+     * 批量调用失败时按单个方法的熔断脚本返回
+     *
+     * @param invoker
+     * @param invocation
+     * @param methodKey
+     * @param snapshot
+     * @return
+     */
+    private static Result invokeCollapsed(Invoker<?> invoker, Invocation invocation, MethodKey methodKey,
+                                          ConfigSnapshot snapshot) {
+        return prioritized(invocation, methodKey, snapshot, () -> collapse(invoker, invocation, methodKey, snapshot));
+    }
+
+    /**
+     * GRADIENT模式下先占用自适应并发数，耗时包含合并等待的时间，失败的调用不计入耗时
+     *
+     * @param invoker
+     * @param invocation
+     * @param methodKey
+     * @param snapshot
+     * @return
+     */
+    private static Result collapse(Invoker<?> invoker, Invocation invocation, MethodKey methodKey,
+                                   ConfigSnapshot snapshot) {
+        HystrixConfig config = snapshot.getHystrixConfig();
+        AdaptiveConcurrencyLimiter limiter = config.isAdaptiveConcurrency()
+                ? AdaptiveConcurrencyLimiter.getInstance(methodKey, config) : null;
+        if (null != limiter && !limiter.tryAcquire()) {
+            return DubboHystrixCommand.executeScript(invocation, snapshot, HystrixConstants.FALLBACK);
+        }
+        long start = System.nanoTime();
+        long rtt = -1;
+        try {
+            Result result = new DubboHystrixCollapser(invoker, invocation, methodKey, snapshot).execute();
+            rtt = System.nanoTime() - start;
+            return result;
+        } catch (RuntimeException e) {
+            log.error("[HYSTRIX-SDK] collapsed call fail, key:{}", methodKey.getConfigKey(), e);
+            return DubboHystrixCommand.executeScript(invocation, snapshot, HystrixConstants.FALLBACK);
+        } finally {
+            if (null != limiter) {
+                limiter.release(rtt, false, config);
             }
-            return null;
+        }
+    }
+
+    /**
+     * 异步执行命令，不阻塞调用线程；命令完成后通过RpcContext中的future返回结果
+     *
+     * @param invoker
+     * @param invocation
+     * @param methodKey
+     * @param snapshot
+     * @return
+     */
+    private static Result invokeAsync(Invoker<?> invoker, Invocation invocation, MethodKey methodKey,
+                                      ConfigSnapshot snapshot) {
+        HystrixResultFuture future = new HystrixResultFuture();
+        new DubboHystrixObservableCommand(invoker, invocation, methodKey, snapshot)
+                .observe()
+                .subscribe(future::complete, future::completeExceptionally);
+        // 覆盖dubbo设置的原始future，调用方拿到的是熔断降级处理后的结果
+        RpcContext.getContext().setFuture(future);
+        return new RpcResult();
     }
 }
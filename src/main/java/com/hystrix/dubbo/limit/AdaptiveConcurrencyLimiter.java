@@ -0,0 +1,217 @@
+package com.hystrix.dubbo.limit;
+
+import com.hystrix.dubbo.model.HystrixConfig;
+import com.hystrix.dubbo.model.MethodKey;
+import com.netflix.hystrix.HystrixCommandKey;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AdaptiveConcurrencyLimiter
+ * 按方法根据调用耗时自动调整允许的并发数（gradient算法）：
+ * 短期平均耗时高于长期平均耗时说明开始排队，按比例减小并发数；耗时稳定时每个窗口增加sqrt(limit)；
+ * 超时视为过载信号，并发数乘以{@link #BACKOFF}。
+ * 并发数的获取、释放只有CAS，耗时按窗口汇总后由一个线程计算新的并发数
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public final class AdaptiveConcurrencyLimiter {
+
+    private static final ConcurrentMap<MethodKey, AdaptiveConcurrencyLimiter> LIMITERS =
+            new ConcurrentHashMap<>(256);
+
+    /**
+     * 计算窗口
+     */
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    /**
+     * 窗口内样本数不足时继续累积
+     */
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    /**
+     * 长期平均耗时的平滑窗口数
+     */
+    private static final double LONG_WINDOWS = 50;
+    /**
+     * 允许的耗时波动，短期耗时不超过长期耗时的1.5倍时不减小并发数
+     */
+    private static final double TOLERANCE = 1.5;
+    /**
+     * 新并发数的权重
+     */
+    private static final double SMOOTHING = 0.2;
+    /**
+     * 出现超时时的并发数系数
+     */
+    private static final double BACKOFF = 0.9;
+
+    private final String groupKey;
+    private final HystrixCommandKey commandKey;
+    /**
+     * 当前允许的并发数
+     */
+    private volatile int limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile double estimatedLimit;
+    /**
+     * 长期平均耗时，纳秒，只由计算窗口的线程修改
+     */
+    private volatile double longRtt;
+    private final LongAdder windowRttSum = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final LongAccumulator windowMaxInFlight = new LongAccumulator(Math::max, 0);
+    private volatile boolean windowDropped = false;
+    private final AtomicLong windowEnd = new AtomicLong(System.nanoTime() + WINDOW_NANOS);
+
+    private AdaptiveConcurrencyLimiter(MethodKey methodKey, int initialLimit) {
+        this.groupKey = methodKey.getGroupKey();
+        this.commandKey = methodKey.getHystrixCommandKey();
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * 获取方法对应的限流器，不同接口的同名方法各自计算并发数
+     *
+     * @param methodKey
+     * @param config
+     *             创建时使用其中的初始并发数
+     * @return
+     */
+    public static AdaptiveConcurrencyLimiter getInstance(MethodKey methodKey, HystrixConfig config) {
+        AdaptiveConcurrencyLimiter limiter = LIMITERS.get(methodKey);
+        if (null != limiter) {
+            return limiter;
+        }
+        return LIMITERS.computeIfAbsent(methodKey,
+                key -> new AdaptiveConcurrencyLimiter(methodKey, clamp(config.getAdaptiveInitialLimit(), config)));
+    }
+
+    public static Collection<AdaptiveConcurrencyLimiter> getInstances() {
+        return Collections.unmodifiableCollection(LIMITERS.values());
+    }
+
+    /**
+     * @return 并发数未达到上限时占用一个并发数并返回true，否则记一次拒绝
+     */
+    public boolean tryAcquire() {
+        for (; ; ) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                windowMaxInFlight.accumulate(current + 1);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 释放并发数并记录耗时
+     *
+     * @param rttNanos
+     *             调用耗时，小于0时不计入样本（如熔断短路）
+     * @param dropped
+     *             是否超时
+     * @param config
+     *             当前配置，用于限制并发数范围
+     */
+    public void release(long rttNanos, boolean dropped, HystrixConfig config) {
+        inFlight.decrementAndGet();
+        if (rttNanos < 0) {
+            return;
+        }
+        windowRttSum.add(rttNanos);
+        windowSamples.increment();
+        if (dropped && !windowDropped) {
+            windowDropped = true;
+        }
+        long now = System.nanoTime();
+        long end = windowEnd.get();
+        if (now - end >= 0 && windowEnd.compareAndSet(end, now + WINDOW_NANOS)) {
+            update(config);
+        }
+    }
+
+    public String getGroupKey() {
+        return groupKey;
+    }
+
+    public HystrixCommandKey getCommandKey() {
+        return commandKey;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * 只由抢到窗口的线程调用
+     *
+     * @param config
+     */
+    private void update(HystrixConfig config) {
+        long samples = windowSamples.sum();
+        if (samples < MIN_WINDOW_SAMPLES && !windowDropped) {
+            return;
+        }
+        long rttSum = windowRttSum.sumThenReset();
+        samples = windowSamples.sumThenReset();
+        long maxInFlight = windowMaxInFlight.getThenReset();
+        boolean dropped = windowDropped;
+        windowDropped = false;
+        if (0 == samples) {
+            return;
+        }
+
+        double shortRtt = (double) rttSum / samples;
+        double longAvg = 0 == longRtt ? shortRtt : longRtt + (shortRtt - longRtt) / LONG_WINDOWS;
+        // 耗时明显下降时长期平均值尽快跟上，否则并发数会持续增长
+        if (longAvg / shortRtt > 2) {
+            longAvg *= 0.95;
+        }
+        longRtt = longAvg;
+
+        double current = estimatedLimit;
+        double newLimit;
+        if (dropped) {
+            newLimit = current * BACKOFF;
+        } else {
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longAvg / shortRtt));
+            newLimit = current * gradient + Math.sqrt(current);
+            // 调用量没有达到并发数的一半时不再增加
+            if (newLimit > current && maxInFlight < current / 2) {
+                newLimit = current;
+            }
+            newLimit = current * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        }
+        newLimit = Math.max(config.getAdaptiveMinLimit(), Math.min(config.getAdaptiveMaxLimit(), newLimit));
+        estimatedLimit = newLimit;
+        limit = (int) newLimit;
+    }
+
+    private static int clamp(int value, HystrixConfig config) {
+        return Math.max(config.getAdaptiveMinLimit(), Math.min(config.getAdaptiveMaxLimit(), value));
+    }
+}
@@ -0,0 +1,134 @@
+package com.hystrix.dubbo.limit;
+
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.RpcContext;
+import com.hystrix.dubbo.constants.HystrixConstants;
+import com.hystrix.dubbo.model.HystrixConfig;
+import com.hystrix.dubbo.model.MethodKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PriorityLoadShedder
+ * 按方法统计同步调用的并发数，每个优先级只能占用并发数的一部分，
+ * 并发数接近上限时先拒绝低优先级的调用，高优先级的调用仍有余量，按优先级统计拒绝次数
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public final class PriorityLoadShedder {
+
+    /**
+     * 支持的优先级数量，0最高，超出范围的按最低处理
+     */
+    public static final int LEVELS = 8;
+
+    private static final ConcurrentMap<MethodKey, PriorityLoadShedder> SHEDDERS = new ConcurrentHashMap<>(256);
+
+    private final String groupKey;
+    private final HystrixCommandKey commandKey;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder[] rejected = new LongAdder[LEVELS];
+
+    private PriorityLoadShedder(MethodKey methodKey) {
+        this.groupKey = methodKey.getGroupKey();
+        this.commandKey = methodKey.getHystrixCommandKey();
+        for (int i = 0; i < LEVELS; i++) {
+            rejected[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 获取方法对应的实例
+     *
+     * @param methodKey
+     * @return
+     */
+    public static PriorityLoadShedder getInstance(MethodKey methodKey) {
+        PriorityLoadShedder shedder = SHEDDERS.get(methodKey);
+        if (null != shedder) {
+            return shedder;
+        }
+        return SHEDDERS.computeIfAbsent(methodKey, key -> new PriorityLoadShedder(methodKey));
+    }
+
+    public static Collection<PriorityLoadShedder> getInstances() {
+        return Collections.unmodifiableCollection(SHEDDERS.values());
+    }
+
+    /**
+     * 读取调用的优先级，消费端的attachment在过滤器之后才合并到invocation，需要再从RpcContext读取
+     *
+     * @param invocation
+     * @param config
+     * @return 0到{@link #LEVELS}-1，没有携带或无法解析时使用默认优先级
+     */
+    public static int priority(Invocation invocation, HystrixConfig config) {
+        String value = invocation.getAttachment(HystrixConstants.PRIORITY_KEY);
+        if (StringUtils.isEmpty(value)) {
+            value = RpcContext.getContext().getAttachment(HystrixConstants.PRIORITY_KEY);
+        }
+        int priority = config.getDefaultPriority();
+        if (StringUtils.isNotEmpty(value)) {
+            try {
+                priority = Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                // 使用默认优先级
+            }
+        }
+        return Math.max(0, Math.min(priority, LEVELS - 1));
+    }
+
+    /**
+     * @param priority
+     * @param capacity
+     *             当前并发上限
+     * @param percent
+     *             该优先级可以占用的并发数百分比
+     * @return 并发数未达到该优先级的上限时占用一个并发数并返回true，否则记一次该优先级的拒绝
+     */
+    public boolean tryAcquire(int priority, int capacity, int percent) {
+        long admitted = (long) capacity * percent / 100;
+        for (; ; ) {
+            int current = inFlight.get();
+            if (current >= admitted) {
+                rejected[priority].increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public String getGroupKey() {
+        return groupKey;
+    }
+
+    public HystrixCommandKey getCommandKey() {
+        return commandKey;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @param priority
+     * @return 该优先级被拒绝的次数
+     */
+    public long getRejected(int priority) {
+        return rejected[priority].sum();
+    }
+}
@@ -0,0 +1,124 @@
+package com.hystrix.dubbo.limit;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * RateLimiter
+ * 无锁令牌桶：速率和桶容量平均分到多个条带上，每个条带只有一个原子变量（GCRA，保存下一个令牌的理论到达时间），
+ * 线程按id选择条带，多核下不会集中竞争一个原子变量；当前条带没有令牌时从随机位置依次尝试其它所有条带，
+ * 只有一两个线程调用时也能取到其它条带的令牌，总速率与配置一致。
+ * 条带数按速率计算，每个条带至少{@link #MIN_STRIPE_RATE}/s，低速率时只有一个条带，限流精确
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public final class RateLimiter {
+
+    /**
+     * 每个条带占128字节，避免伪共享
+     */
+    private static final int PAD = 16;
+    private static final int MAX_STRIPES = Math.min(64,
+            Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2));
+    private static final double MIN_STRIPE_RATE = 50;
+
+    private final double permitsPerSecond;
+    private final int burst;
+    private final int mask;
+    /**
+     * 每个条带发放一个令牌的间隔
+     */
+    private final long intervalNanos;
+    /**
+     * 每个条带允许提前发放的时长，对应条带的桶容量
+     */
+    private final long toleranceNanos;
+    private final AtomicLongArray cells;
+
+    /**
+     * @param permitsPerSecond
+     *             每秒令牌数
+     * @param burst
+     *             桶容量，即允许的突发调用数
+     */
+    public RateLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, MAX_STRIPES);
+    }
+
+    /**
+     * @param permitsPerSecond
+     * @param burst
+     * @param maxStripes
+     *             最多的条带数，2的幂
+     */
+    @VisibleForTesting
+    public RateLimiter(double permitsPerSecond, int burst, int maxStripes) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = Math.max(1, burst);
+        int stripes = Math.min(maxStripes, Integer.highestOneBit(Math.max(1,
+                Math.min((int) (permitsPerSecond / MIN_STRIPE_RATE), this.burst))));
+        this.mask = stripes - 1;
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) * stripes / permitsPerSecond);
+        this.toleranceNanos = intervalNanos * (Math.max(1, this.burst / stripes) - 1);
+        this.cells = new AtomicLongArray(stripes * PAD);
+        long now = System.nanoTime();
+        for (int i = 0; i < stripes; i++) {
+            cells.set(i * PAD, now);
+        }
+    }
+
+    /**
+     * @return 有令牌时取走一个并返回true，不等待
+     */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        int index = (int) (Thread.currentThread().getId() * 0x9E3779B9L >>> 16) & mask;
+        if (tryAcquire(index, now)) {
+            return true;
+        }
+        // 从随机位置开始依次尝试其它所有条带，不会重复尝试当前条带；没有令牌的条带只读不写，限流时开销很小
+        int offset = mask > 1 ? ThreadLocalRandom.current().nextInt(mask) : 0;
+        for (int i = 0; i < mask; i++) {
+            if (tryAcquire((index + 1 + (offset + i) % mask) & mask, now)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean tryAcquire(int index, long now) {
+        int slot = index * PAD;
+        for (; ; ) {
+            long next = cells.get(slot);
+            long start = next - now > 0 ? next : now;
+            if (start - now > toleranceNanos) {
+                return false;
+            }
+            if (cells.compareAndSet(slot, next, start + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * @return 条带数
+     */
+    public int getStripes() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,138 @@
+package com.hystrix.dubbo.listener;
+
+import com.hystrix.dubbo.metrics.CommandLatencyMetrics;
+import com.hystrix.dubbo.model.ConfigSnapshot;
+import com.hystrix.dubbo.model.HystrixConfig;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * AdaptiveTimeoutTuner
+ * 按最近10s的执行耗时分位数计算打开了自适应超时的命令的超时时间，
+ * 结果由{@link HystrixDynamicSource}写入archaius，与其它hystrix属性走同一条路径
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@Slf4j
+public final class AdaptiveTimeoutTuner {
+
+    /**
+     * 计算分位数需要的最少样本数
+     */
+    private static final long MIN_SAMPLES = 100;
+    /**
+     * 新旧超时时间相差不到10%时不更新，避免频繁写入archaius
+     */
+    private static final int CHANGE_THRESHOLD_PERCENT = 10;
+
+    /**
+     * 配置key -> 当前生效的自适应超时时间
+     */
+    private static final ConcurrentMap<String, Integer> TIMEOUTS = new ConcurrentHashMap<>(64);
+
+    private AdaptiveTimeoutTuner() {
+    }
+
+    /**
+     * 重新计算超时时间
+     *
+     * @param fullKeys
+     *             已收集的配置key
+     * @param prefix
+     *             hystrix命令属性前缀
+     * @param properties
+     *             变化的超时时间写入其中
+     */
+    static void tune(Collection<String> fullKeys, String prefix, Map<String, Object> properties) {
+        Set<String> changed = new HashSet<>();
+        for (String fullKey : fullKeys) {
+            MethodKey methodKey = MethodKeyRegistry.get(fullKey);
+            ConfigSnapshot snapshot = HystrixConfigStore.get(fullKey);
+            if (null == snapshot || !snapshot.isEnabled() || !snapshot.getHystrixConfig().isAdaptiveTimeoutEnabled()) {
+                if (null != TIMEOUTS.remove(fullKey) && null != methodKey) {
+                    // 同名方法的超时时间可能需要重新计算
+                    changed.add(methodKey.getCommandKeyName());
+                }
+                continue;
+            }
+            if (null == methodKey) {
+                continue;
+            }
+            HystrixConfig config = snapshot.getHystrixConfig();
+            long micros = CommandLatencyMetrics.getInstance(methodKey).getExecution()
+                    .rollingPercentileMicros(config.getAdaptiveTimeoutPercentile(), MIN_SAMPLES);
+            int timeout = micros < 0 ? config.getAdaptiveTimeoutMaxMillis()
+                    : (int) Math.max(config.getAdaptiveTimeoutMinMillis(), Math.min(config.getAdaptiveTimeoutMaxMillis(),
+                    micros / 1000 + config.getAdaptiveTimeoutMarginMillis()));
+            Integer current = TIMEOUTS.get(fullKey);
+            if (null != current && Math.abs(timeout - current) * 100 < current * CHANGE_THRESHOLD_PERCENT) {
+                continue;
+            }
+            TIMEOUTS.put(fullKey, timeout);
+            changed.add(methodKey.getCommandKeyName());
+            log.info("[HYSTRIX-SDK] adaptive timeout, key:{}, p{}:{}us, timeout:{}ms", fullKey,
+                    config.getAdaptiveTimeoutPercentile(), micros, timeout);
+        }
+        for (String commandKey : changed) {
+            Integer timeout = sharedTimeout(commandKey);
+            if (null != timeout) {
+                properties.put(timeoutProperty(prefix, commandKey), timeout);
+            }
+        }
+    }
+
+    /**
+     * 不同接口的同名方法共用一个hystrix命令属性，取其中最大的超时时间，避免一个接口的短超时影响另一个接口
+     *
+     * @param commandKey
+     * @return 没有时返回null
+     */
+    private static Integer sharedTimeout(String commandKey) {
+        Integer timeout = null;
+        for (Map.Entry<String, Integer> entry : TIMEOUTS.entrySet()) {
+            MethodKey methodKey = MethodKeyRegistry.get(entry.getKey());
+            if (null != methodKey && commandKey.equals(methodKey.getCommandKeyName())
+                    && (null == timeout || entry.getValue() > timeout)) {
+                timeout = entry.getValue();
+            }
+        }
+        return timeout;
+    }
+
+    /**
+     * 配置刷新时保留当前的自适应超时时间，不被初始值覆盖
+     *
+     * @param fullKey
+     * @param prefix
+     * @param commandKey
+     * @param properties
+     */
+    static void retain(String fullKey, String prefix, String commandKey, Map<String, Object> properties) {
+        Integer timeout = TIMEOUTS.containsKey(fullKey) ? sharedTimeout(commandKey) : null;
+        String property = timeoutProperty(prefix, commandKey);
+        if (null != timeout && properties.containsKey(property)) {
+            properties.put(property, timeout);
+        }
+    }
+
+    /**
+     * @param fullKey
+     * @return 当前的自适应超时时间，没有时返回null
+     */
+    public static Integer getTimeout(String fullKey) {
+        return TIMEOUTS.get(fullKey);
+    }
+
+    private static String timeoutProperty(String prefix, String commandKey) {
+        return prefix + commandKey + ".execution.isolation.thread.timeoutInMilliseconds";
+    }
+}
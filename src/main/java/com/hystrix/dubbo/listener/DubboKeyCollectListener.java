@@ -1,43 +1,123 @@
 package com.hystrix.dubbo.listener;
 
-import com.alibaba.fastjson.JSONObject;
+import com.alibaba.dubbo.config.spring.ReferenceBean;
+import com.alibaba.dubbo.config.spring.ServiceBean;
+import com.alibaba.dubbo.rpc.service.GenericService;
+import com.hystrix.dubbo.command.DubboHystrixCommand;
+import com.hystrix.dubbo.model.ConfigSnapshot;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.strategy.WorkStealingConcurrencyStrategy;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
+import javax.annotation.PostConstruct;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by yuanhuzi on 2021/8/21.
+ * 容器刷新后扫描dubbo的服务及引用，提前登记所有方法的key、批量加载一次配置、初始化hystrix的统计和线程池，
+ * 脚本在配置加载时已提交后台编译，发布后的第一批请求不用再承担这些开销
  */
+@Slf4j
 @Component
 public class DubboKeyCollectListener implements ApplicationContextAware, ApplicationListener<ContextRefreshedEvent> {
 
     private AtomicInteger index = new AtomicInteger(0);
     private ApplicationContext applicationContext;
+    private HystrixDynamicSource dynamicSource;
+
+    @Autowired
+    public void setDynamicSource(HystrixDynamicSource dynamicSource) {
+        this.dynamicSource = dynamicSource;
+    }
+
+    /**
+     * 在任何命令创建之前注册并发策略
+     */
+    @PostConstruct
+    public void init() {
+        WorkStealingConcurrencyStrategy.install();
+    }
 
     @Override
     public void onApplicationEvent(ContextRefreshedEvent event) {
         if (index.get() > 0) {
             return;
         }
-        String applicationName = applicationContext.getEnvironment().getProperty("spring.application.name");
-        Set<String> commandKeys = HystrixDynamicSource.getCommandKey();
-        Map<String, Object> header = new HashMap<>(1);
-        header.put("Content-Type", "application/json;charset=utf-8");
-        Map<String, Object> params = new HashMap<>(2);
-        params.put("application", applicationName);
-        params.put("keys", JSONObject.toJSONString(commandKeys));
-
+        warmUp();
         index.incrementAndGet();
     }
 
+    /**
+     * 预热，失败不影响应用启动，未预热的方法在第一次调用时照常初始化
+     */
+    private void warmUp() {
+        long start = System.nanoTime();
+        try {
+            List<MethodKey> methodKeys = new ArrayList<>();
+            for (Class<?> interfaceClass : dubboInterfaces()) {
+                for (Method method : interfaceClass.getMethods()) {
+                    // 只登记不逐个加载配置，登记完成后批量加载一次
+                    methodKeys.add(MethodKeyRegistry.register(interfaceClass, method.getName(),
+                            method.getParameterTypes()));
+                }
+            }
+            if (methodKeys.isEmpty()) {
+                return;
+            }
+            // 同步加载一次配置，加载时提交脚本编译
+            dynamicSource.fillConfig();
+
+            int enabled = 0;
+            for (MethodKey methodKey : methodKeys) {
+                ConfigSnapshot snapshot = methodKey.getSnapshot();
+                if (null != snapshot && snapshot.isEnabled()) {
+                    DubboHystrixCommand.warmUp(methodKey, snapshot);
+                    enabled++;
+                }
+            }
+            log.info("[HYSTRIX-SDK] warm up {} methods, {} enabled, cost {}ms", methodKeys.size(), enabled,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            log.error("[HYSTRIX-SDK] warm up fail", e);
+        }
+    }
+
+    /**
+     * @return 所有dubbo服务及引用的接口，不包括泛化调用
+     */
+    private Set<Class<?>> dubboInterfaces() {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (ServiceBean<?> serviceBean : applicationContext.getBeansOfType(ServiceBean.class).values()) {
+            addInterface(interfaces, serviceBean.getInterfaceClass());
+        }
+        // 只取工厂本身，不触发引用的创建
+        for (ReferenceBean<?> referenceBean : applicationContext.getBeansOfType(ReferenceBean.class, true, false)
+                .values()) {
+            addInterface(interfaces, referenceBean.getInterfaceClass());
+        }
+        return interfaces;
+    }
+
+    private static void addInterface(Set<Class<?>> interfaces, Class<?> interfaceClass) {
+        if (null != interfaceClass && interfaceClass.isInterface() && GenericService.class != interfaceClass) {
+            interfaces.add(interfaceClass);
+        }
+    }
+
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         this.applicationContext = applicationContext;
@@ -0,0 +1,126 @@
+package com.hystrix.dubbo.listener;
+
+import com.alibaba.fastjson.JSON;
+import com.hystrix.dubbo.model.ConfigSnapshot;
+import com.hystrix.dubbo.model.HystrixModel;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HystrixConfigStore
+ * 配置快照仓库，读取为一次无锁的map查询，不做任何解析；
+ * 只有{@link HystrixDynamicSource}可以写入
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@Slf4j
+public final class HystrixConfigStore {
+
+    private static final ConcurrentMap<String, ConfigSnapshot> SNAPSHOTS = new ConcurrentHashMap<>(256);
+    private static final AtomicLong VERSION = new AtomicLong(0);
+
+    private HystrixConfigStore() {
+    }
+
+    /**
+     * 获取配置快照
+     *
+     * @param key
+     * @return 未配置时返回null
+     */
+    public static ConfigSnapshot get(String key) {
+        return SNAPSHOTS.get(key);
+    }
+
+    /**
+     * 用最新的配置内容替换快照，内容未变化时不替换
+     *
+     * @param key
+     * @param value
+     *             配置内容（json内容），为空时删除快照
+     * @return 快照是否发生变化
+     */
+    static synchronized boolean update(String key, String value) {
+        if (StringUtils.isEmpty(value)) {
+            return remove(key);
+        }
+        ConfigSnapshot current = SNAPSHOTS.get(key);
+        if (null != current && Objects.equals(current.getValue(), value)) {
+            return false;
+        }
+        ConfigSnapshot snapshot;
+        try {
+            HystrixModel model = JSON.parseObject(value, HystrixModel.class);
+            if (null == model) {
+                return remove(key);
+            }
+            snapshot = new ConfigSnapshot(key, VERSION.incrementAndGet(), value, model, current);
+        } catch (Exception e) {
+            // 解析失败或脚本引擎不存在时保留旧快照
+            log.error("[HYSTRIX-SDK]hystrixConfig to object fail, key:{}", key, e);
+            return false;
+        }
+        SNAPSHOTS.put(key, snapshot);
+        bind(key, snapshot);
+        release(current, snapshot);
+        log.info("[HYSTRIX-SDK][MODEL] key:{}, version:{}, model:{}", key, snapshot.getVersion(),
+                snapshot.getModel());
+        return true;
+    }
+
+    private static boolean remove(String key) {
+        bind(key, null);
+        ConfigSnapshot removed = SNAPSHOTS.remove(key);
+        release(removed, null);
+        return null != removed;
+    }
+
+    /**
+     * 新快照不再使用的旧脚本从编译缓存中移除，旧classloader在没有引用后被回收
+     *
+     * @param current
+     *             被替换的快照
+     * @param snapshot
+     *             新快照，删除时为null
+     */
+    private static void release(ConfigSnapshot current, ConfigSnapshot snapshot) {
+        if (null == current) {
+            return;
+        }
+        for (String script : new String[]{current.getDegradeScript(), current.getFallbackScript()}) {
+            if (StringUtils.isBlank(script)) {
+                continue;
+            }
+            boolean inUse = null != snapshot && snapshot.getScriptEngine() == current.getScriptEngine()
+                    && snapshot.isStaticScript() == current.isStaticScript()
+                    && (script.equals(snapshot.getDegradeScript()) || script.equals(snapshot.getFallbackScript()));
+            if (!inUse) {
+                current.getScriptEngine().release(script, current.isStaticScript());
+            }
+        }
+    }
+
+    private static void bind(String key, ConfigSnapshot snapshot) {
+        MethodKey methodKey = MethodKeyRegistry.get(key);
+        if (null != methodKey) {
+            methodKey.bindSnapshot(snapshot);
+        }
+    }
+
+    /**
+     * 新注册的方法挂载当前快照
+     *
+     * @param methodKey
+     */
+    public static synchronized void bind(MethodKey methodKey) {
+        methodKey.bindSnapshot(SNAPSHOTS.get(methodKey.getConfigKey()));
+    }
+}
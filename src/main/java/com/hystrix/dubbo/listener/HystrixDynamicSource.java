@@ -1,21 +1,30 @@
 package com.hystrix.dubbo.listener;
 
-import com.alibaba.fastjson.JSON;
 import com.hystrix.dubbo.constants.HystrixConstants;
+import com.hystrix.dubbo.model.ConfigSnapshot;
 import com.hystrix.dubbo.model.HystrixConfig;
-import com.hystrix.dubbo.model.HystrixModel;
+import com.hystrix.dubbo.source.ConfigChangeListener;
+import com.hystrix.dubbo.source.HystrixConfigSource;
+import com.netflix.config.ConcurrentCompositeConfiguration;
 import com.netflix.config.ConfigurationManager;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.MapUtils;
+import org.apache.commons.configuration.AbstractConfiguration;
 import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -31,18 +40,81 @@ public class HystrixDynamicSource {
     /**
      * 存储最新的配置
      */
-    private static final Set<String> COMMAND_KEY = new HashSet<>(256);
+    private static final Set<String> COMMAND_KEY = ConcurrentHashMap.newKeySet(256);
     private static final String COMMAND_PREFIX = "hystrix.command.";
     private static final String THREAD_POOL_PREFIX = "hystrix.threadpool.";
+    private static final String COLLAPSER_PREFIX = "hystrix.collapser.";
+    /**
+     * 上一次写入archaius的属性值
+     */
+    private static final Map<String, Object> APPLIED = new HashMap<>(1024);
+    /**
+     * 配置key -> 为该key写入的属性名
+     */
+    private static final Map<String, Set<String>> OWNED = new HashMap<>(256);
+    /**
+     * 属性名 -> 写入该属性的配置key，多个方法共用线程池时线程池属性有多个来源
+     */
+    private static final Map<String, Set<String>> OWNERS = new HashMap<>(1024);
+
+    /**
+     * 没有推送能力时的轮询周期
+     */
+    private static final long POLL_PERIOD_SECONDS = 20;
+    /**
+     * 推送模式下兜底的全量同步周期，防止丢失变更消息
+     */
+    private static final long RESYNC_PERIOD_SECONDS = 300;
+    /**
+     * 自适应超时的计算周期
+     */
+    private static final long ADAPTIVE_TIMEOUT_PERIOD_SECONDS = 1;
 
     private static final ScheduledExecutorService pool = new ScheduledThreadPoolExecutor(1);
 
+    private static volatile HystrixConfigSource configSource;
+
+    @Autowired(required = false)
+    public void setConfigSource(HystrixConfigSource source) {
+        configSource = source;
+    }
+
     @PostConstruct
     public void schedule() {
+        HystrixConfigSource source = configSource;
+        boolean push = null != source && source.subscribe(new ConfigChangeListener() {
+            @Override
+            public void onChange(String key) {
+                if (COMMAND_KEY.contains(key)) {
+                    pool.execute(() -> refresh(key));
+                }
+            }
+
+            @Override
+            public void onResync() {
+                pool.execute(HystrixDynamicSource.this::fillConfig);
+            }
+        });
+        long period = push ? RESYNC_PERIOD_SECONDS : POLL_PERIOD_SECONDS;
         pool.scheduleAtFixedRate(() -> {
             log.info("refresh {}", System.currentTimeMillis());
             fillConfig();
-        }, 30, 20, TimeUnit.SECONDS);
+        }, 30, period, TimeUnit.SECONDS);
+        pool.scheduleWithFixedDelay(HystrixDynamicSource::tuneTimeouts, ADAPTIVE_TIMEOUT_PERIOD_SECONDS,
+                ADAPTIVE_TIMEOUT_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 按耗时分位数更新自适应超时时间
+     */
+    public static void tuneTimeouts() {
+        try {
+            Map<String, Object> properties = new HashMap<>(16);
+            AdaptiveTimeoutTuner.tune(COMMAND_KEY, COMMAND_PREFIX, properties);
+            applyProperties(properties);
+        } catch (Exception e) {
+            log.error("[HYSTRIX-SDK] tune adaptive timeout fail", e);
+        }
     }
 
     public static Set<String> getCommandKey() {
@@ -50,10 +122,22 @@ public class HystrixDynamicSource {
     }
 
     public static void collectKey(String commandFullKey) {
+        collectKey(commandFullKey, true);
+    }
+
+    /**
+     * @param commandFullKey
+     * @param refresh
+     *             新出现的key是否立即异步加载一次；批量登记时为false，登记完成后由调用方执行一次fillConfig
+     */
+    public static void collectKey(String commandFullKey, boolean refresh) {
         if (StringUtils.isBlank(commandFullKey)) {
             return;
         }
-        COMMAND_KEY.add(commandFullKey);
+        // 新出现的key立即异步加载一次，不用等下一次同步
+        if (COMMAND_KEY.add(commandFullKey) && refresh && null != configSource) {
+            pool.execute(() -> refresh(commandFullKey));
+        }
     }
 
     public void fillConfig() {
@@ -61,25 +145,95 @@ public class HystrixDynamicSource {
         if (COMMAND_KEY.isEmpty()) {
             return;
         }
-        // 根据key从redis里取值
-        COMMAND_KEY.forEach(fullKey -> {
-            HystrixModel hystrixModel = config(fullKey);
-            if (null == hystrixModel || null == hystrixModel.getHystrixConfig()) {
-                return;
-            }
-            if (Objects.equals(hystrixModel.getEnable(), HystrixConstants.UNENABLE)) {
+        Map<String, Object> properties = new HashMap<>(64);
+        Set<String> released = new HashSet<>();
+        HystrixConfigSource source = configSource;
+        if (null == source) {
+            COMMAND_KEY.forEach(fullKey -> refresh(fullKey, properties, released));
+        } else {
+            // 根据key从redis里批量取值，读取失败的key不在结果中，保留原有配置
+            Map<String, String> values;
+            try {
+                values = source.batchGet(new ArrayList<>(COMMAND_KEY));
+            } catch (Exception e) {
+                log.error("[HYSTRIX-SDK] batch fetch config fail", e);
                 return;
             }
-            if (HystrixConstants.THREAD.equals(hystrixModel.getHystrixConfig().getExecutionIsolationStrategy())) {
-                updateCommon(hystrixModel.getHystrixConfig(), fullKey);
-                updateThreadPool(hystrixModel.getHystrixConfig(), fullKey);
-            }
+            values.forEach((fullKey, value) -> refresh(fullKey, value, properties, released));
+        }
+        applyProperties(properties, released);
 
-            if (HystrixConstants.SEMAPHORE.equals(hystrixModel.getHystrixConfig().getExecutionIsolationStrategy())) {
-                updateCommon(hystrixModel.getHystrixConfig(), fullKey);
-            }
-        });
+    }
+
+    /**
+     * 刷新单个key的配置
+     *
+     * @param fullKey
+     */
+    private static void refresh(String fullKey) {
+        Map<String, Object> properties = new HashMap<>(32);
+        Set<String> released = new HashSet<>();
+        refresh(fullKey, properties, released);
+        applyProperties(properties, released);
+    }
+
+    private static void refresh(String fullKey, Map<String, Object> properties, Set<String> released) {
+        String value;
+        try {
+            value = config(fullKey);
+        } catch (Exception e) {
+            // 读取失败时保留原有配置
+            log.error("[HYSTRIX-SDK] fetch config fail, key:{}", fullKey, e);
+            return;
+        }
+        refresh(fullKey, value, properties, released);
+    }
+
+    /**
+     * 用已获取的配置内容刷新单个key，快照未变化时不产生任何属性
+     *
+     * @param fullKey
+     * @param value
+     * @param properties
+     *             待更新的hystrix属性
+     * @param released
+     *             不再有配置key使用、需要从archaius清除的属性
+     */
+    private static void refresh(String fullKey, String value, Map<String, Object> properties, Set<String> released) {
+        if (!HystrixConfigStore.update(fullKey, value)) {
+            return;
+        }
+        Map<String, Object> keyProperties = new HashMap<>(32);
+        collect(fullKey, HystrixConfigStore.get(fullKey), keyProperties);
+        properties.putAll(keyProperties);
+        track(fullKey, keyProperties.keySet(), released);
+    }
+
+    /**
+     * @param fullKey
+     * @param snapshot
+     * @param properties
+     *             快照对应的hystrix属性，快照已删除或关闭时为空
+     */
+    private static void collect(String fullKey, ConfigSnapshot snapshot, Map<String, Object> properties) {
+        if (null == snapshot || !snapshot.isEnabled()) {
+            return;
+        }
+        HystrixConfig hystrixConfig = snapshot.getHystrixConfig();
+        if (HystrixConstants.THREAD.equals(hystrixConfig.getExecutionIsolationStrategy())
+                || HystrixConstants.WORK_STEALING.equals(hystrixConfig.getExecutionIsolationStrategy())) {
+            updateCommon(hystrixConfig, fullKey, properties);
+            updateThreadPool(hystrixConfig, snapshot.getThreadPoolKey().name(), properties);
+        }
+
+        if (HystrixConstants.SEMAPHORE.equals(hystrixConfig.getExecutionIsolationStrategy())) {
+            updateCommon(hystrixConfig, fullKey, properties);
+        }
 
+        if (snapshot.isBatchable()) {
+            // 合并器的key为配置key
+            properties.putAll(hystrixConfig.processCollapser(COLLAPSER_PREFIX, fullKey));
+        }
     }
 
     /**
@@ -87,16 +241,18 @@ public class HystrixDynamicSource {
      *
      * @param hystrixConfig
      * @param commandKey
+     * @param properties
      * @see HystrixConfig#processCommand(String, String)
      */
-    private void updateCommon(HystrixConfig hystrixConfig, String commandKey) {
+    private static void updateCommon(HystrixConfig hystrixConfig, String commandKey, Map<String, Object> properties) {
         int index = commandKey.lastIndexOf(".") + 1;
         Map<String, Object> commandConfig = hystrixConfig.processCommand(COMMAND_PREFIX, commandKey.substring(index));
+        if (hystrixConfig.isAdaptiveTimeoutEnabled()) {
+            AdaptiveTimeoutTuner.retain(commandKey, COMMAND_PREFIX, commandKey.substring(index), commandConfig);
+        }
 
         if (!MapUtils.isEmpty(commandConfig)) {
-            for (Map.Entry<String, Object> config : commandConfig.entrySet()) {
-                ConfigurationManager.getConfigInstance().addProperty(config.getKey(), config.getValue());
-            }
+            properties.putAll(commandConfig);
         }
     }
 
@@ -105,35 +261,105 @@ public class HystrixDynamicSource {
      * 更新线程池时需同时更新通用属性
      *
      * @param hystrixConfig
-     * @param commandKey
+     * @param threadPoolKey
+     *             命令实际使用的线程池key
+     * @param properties
+     * @see HystrixConfig#threadPoolKey(String)
      */
-    private void updateThreadPool(HystrixConfig hystrixConfig, String commandKey) {
-        Map<String, Object> threadPoolConfig = hystrixConfig.processThreadPool(THREAD_POOL_PREFIX, commandKey);
+    private static void updateThreadPool(HystrixConfig hystrixConfig, String threadPoolKey,
+                                         Map<String, Object> properties) {
+        Map<String, Object> threadPoolConfig = hystrixConfig.processThreadPool(THREAD_POOL_PREFIX, threadPoolKey);
         if (!MapUtils.isEmpty(threadPoolConfig)) {
-            for (Map.Entry<String, Object> config : threadPoolConfig.entrySet()) {
-                ConfigurationManager.getConfigInstance().addProperty(config.getKey(), config.getValue());
+            properties.putAll(threadPoolConfig);
+        }
+    }
+
+    /**
+     * 记录配置key写入的属性，不再写入的属性在没有其它配置key使用时放入released
+     *
+     * @param fullKey
+     * @param names
+     *             本次为该key生成的属性名
+     * @param released
+     */
+    private static synchronized void track(String fullKey, Set<String> names, Set<String> released) {
+        Set<String> previous = names.isEmpty() ? OWNED.remove(fullKey) : OWNED.put(fullKey, new HashSet<>(names));
+        if (null != previous) {
+            for (String name : previous) {
+                Set<String> owners = OWNERS.get(name);
+                if (names.contains(name) || null == owners) {
+                    continue;
+                }
+                owners.remove(fullKey);
+                if (owners.isEmpty()) {
+                    OWNERS.remove(name);
+                    released.add(name);
+                }
             }
         }
+        for (String name : names) {
+            OWNERS.computeIfAbsent(name, key -> new HashSet<>(4)).add(fullKey);
+        }
+    }
+
+    static void applyProperties(Map<String, Object> properties) {
+        applyProperties(properties, Collections.emptySet());
     }
 
     /**
-     * 获取配置信息
+     * 只把和上次生效值不同的属性写入archaius。
+     * archaius为默认的组合配置时，本次的全部变化整体替换到子配置HystrixPropertiesConfiguration中，只触发一次监听，
+     * 不会出现新的超时时间和旧的隔离策略同时生效的情况；其它配置实现只能逐个setProperty/clearProperty
+     *
+     * 快照删除或关闭后清除不再使用的属性，重新打开时使用默认值而不是之前的配置
+     *
+     * @param properties
+     * @param released
+     *             待清除的属性
+     */
+    static synchronized void applyProperties(Map<String, Object> properties, Set<String> released) {
+        List<String> cleared = new ArrayList<>();
+        for (String name : released) {
+            // 处理期间又被其它配置key使用的属性不清除
+            if (properties.containsKey(name) || OWNERS.containsKey(name) || !APPLIED.containsKey(name)) {
+                continue;
+            }
+            APPLIED.remove(name);
+            cleared.add(name);
+        }
+        Map<String, Object> changed = new HashMap<>(16);
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            if (!Objects.equals(APPLIED.get(property.getKey()), property.getValue())) {
+                APPLIED.put(property.getKey(), property.getValue());
+                changed.put(property.getKey(), property.getValue());
+            }
+        }
+        if (cleared.isEmpty() && changed.isEmpty()) {
+            return;
+        }
+        AbstractConfiguration configuration = ConfigurationManager.getConfigInstance();
+        if (configuration instanceof ConcurrentCompositeConfiguration) {
+            HystrixPropertiesConfiguration.attach((ConcurrentCompositeConfiguration) configuration).replace(APPLIED);
+        } else {
+            // 使用setProperty覆盖旧值，addProperty会把同名属性追加成列表
+            cleared.forEach(configuration::clearProperty);
+            changed.forEach(configuration::setProperty);
+        }
+        log.info("[HYSTRIX-SDK] apply {} changed and {} cleared properties of {}", changed.size(), cleared.size(),
+                properties.size());
+    }
+
+    /**
+     * 获取配置内容（json内容），解析由{@link HystrixConfigStore}完成
      *
      * @param key
      * @return
      */
-    protected static HystrixModel config(String key) {
-        // TODO 获取配置内容（json内容）
-        String value = "";
-        if (StringUtils.isEmpty(value)) {
-            return null;
-        }
-        try {
-            HystrixModel hystrix = JSON.parseObject(value, HystrixModel.class);
-            return hystrix;
-        } catch (Exception e) {
-            log.error("[HYSTRIX-SDK]hystrixConfig to object fail", e);
+    protected static String config(String key) {
+        HystrixConfigSource source = configSource;
+        if (null == source) {
+            return "";
         }
-        return null;
+        return source.get(key);
     }
 }
@@ -0,0 +1,85 @@
+package com.hystrix.dubbo.listener;
+
+import com.netflix.config.ConcurrentCompositeConfiguration;
+import org.apache.commons.configuration.AbstractConfiguration;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * HystrixPropertiesConfiguration
+ * 本组件写入的hystrix属性，作为archaius组合配置的一个子配置；
+ * 刷新时整体替换属性表并只发出一次配置源变更事件，读取方不会看到只写入了一部分的配置
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+final class HystrixPropertiesConfiguration extends AbstractConfiguration {
+
+    static final String NAME = "hystrixDubboProperties";
+
+    private volatile Map<String, Object> properties = Collections.emptyMap();
+
+    /**
+     * 获取组合配置中的子配置，不存在时放到最前面
+     *
+     * @param composite
+     * @return
+     */
+    static synchronized HystrixPropertiesConfiguration attach(ConcurrentCompositeConfiguration composite) {
+        HystrixPropertiesConfiguration configuration = (HystrixPropertiesConfiguration) composite.getConfiguration(NAME);
+        if (null == configuration) {
+            configuration = new HystrixPropertiesConfiguration();
+            composite.addConfigurationAtFront(configuration, NAME);
+        }
+        return configuration;
+    }
+
+    /**
+     * 整体替换属性，archaius收到配置源变更事件后重新读取所有动态属性
+     *
+     * @param properties
+     */
+    synchronized void replace(Map<String, Object> properties) {
+        this.properties = Collections.unmodifiableMap(new HashMap<>(properties));
+        fireEvent(ConcurrentCompositeConfiguration.EVENT_CONFIGURATION_SOURCE_CHANGED, null, null, false);
+    }
+
+    @Override
+    protected synchronized void addPropertyDirect(String key, Object value) {
+        Map<String, Object> copy = new HashMap<>(properties);
+        copy.put(key, value);
+        properties = Collections.unmodifiableMap(copy);
+    }
+
+    @Override
+    protected synchronized void clearPropertyDirect(String key) {
+        if (properties.containsKey(key)) {
+            Map<String, Object> copy = new HashMap<>(properties);
+            copy.remove(key);
+            properties = Collections.unmodifiableMap(copy);
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return properties.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return properties.containsKey(key);
+    }
+
+    @Override
+    public Object getProperty(String key) {
+        return properties.get(key);
+    }
+
+    @Override
+    public Iterator<String> getKeys() {
+        return properties.keySet().iterator();
+    }
+}
@@ -0,0 +1,61 @@
+package com.hystrix.dubbo.metrics;
+
+import com.hystrix.dubbo.model.MethodKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * CommandLatencyMetrics
+ * 按方法统计执行、熔断降级及线程池排队耗时；不同接口的同名方法共用HystrixCommandKey，统计按MethodKey分开
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@Getter
+public final class CommandLatencyMetrics {
+
+    private static final ConcurrentMap<MethodKey, CommandLatencyMetrics> METRICS = new ConcurrentHashMap<>(256);
+
+    private final String groupKey;
+    private final HystrixCommandKey commandKey;
+    /**
+     * run()执行耗时，包括手动降级脚本
+     */
+    private final LatencyRecorder execution = new LatencyRecorder();
+    /**
+     * fallback耗时
+     */
+    private final LatencyRecorder fallback = new LatencyRecorder();
+    /**
+     * THREAD隔离时，从创建命令到在线程池中开始执行的耗时
+     */
+    private final LatencyRecorder queueWait = new LatencyRecorder();
+
+    private CommandLatencyMetrics(MethodKey methodKey) {
+        this.groupKey = methodKey.getGroupKey();
+        this.commandKey = methodKey.getHystrixCommandKey();
+    }
+
+    /**
+     * 获取方法对应的统计
+     *
+     * @param methodKey
+     * @return
+     */
+    public static CommandLatencyMetrics getInstance(MethodKey methodKey) {
+        CommandLatencyMetrics metrics = METRICS.get(methodKey);
+        if (null != metrics) {
+            return metrics;
+        }
+        return METRICS.computeIfAbsent(methodKey, key -> new CommandLatencyMetrics(methodKey));
+    }
+
+    public static Collection<CommandLatencyMetrics> getInstances() {
+        return Collections.unmodifiableCollection(METRICS.values());
+    }
+}
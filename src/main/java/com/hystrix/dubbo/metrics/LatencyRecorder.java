@@ -0,0 +1,144 @@
+package com.hystrix.dubbo.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyRecorder
+ * 单项耗时统计，写入使用HdrHistogram的Recorder，无锁且不分配对象；
+ * 读取时取出上次读取以来的区间数据，累加到总量、待导出数据及最近10s的滚动窗口中，导出和分位数读取互不影响
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public final class LatencyRecorder {
+
+    /**
+     * 可记录的最大耗时，微秒，超过按最大值记录
+     */
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    /**
+     * 滚动窗口的桶数及每个桶的时长，共10s
+     */
+    private static final int ROLLING_BUCKETS = 10;
+    private static final long BUCKET_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Recorder recorder = new Recorder(HIGHEST_MICROS, SIGNIFICANT_DIGITS);
+    private final LongAdder sumMicros = new LongAdder();
+    private final Histogram total = new Histogram(HIGHEST_MICROS, SIGNIFICANT_DIGITS);
+    private Histogram interval;
+    /**
+     * 上次导出以来的数据
+     */
+    private final Histogram unscraped = new Histogram(HIGHEST_MICROS, SIGNIFICANT_DIGITS);
+    /**
+     * 滚动窗口，第一次读取分位数时创建
+     */
+    private Histogram[] rolling;
+    private Histogram rollingView;
+    private int rollingIndex;
+    private long bucketStart;
+
+    /**
+     * @param nanos
+     *             耗时，纳秒
+     */
+    public void record(long nanos) {
+        long micros = Math.min(Math.max(nanos / 1000, 0), HIGHEST_MICROS);
+        recorder.recordValue(micros);
+        sumMicros.add(micros);
+    }
+
+    /**
+     * 取出上次导出以来的数据，分位数在锁内计算，返回的结果不引用内部的直方图，多个线程同时导出互不影响
+     *
+     * @param percentiles
+     *             百分位，如99.0
+     * @return 导出用的数据，区间内没有数据时分位数为-1
+     */
+    synchronized Snapshot snapshot(double[] percentiles) {
+        drain();
+        long[] micros = new long[percentiles.length];
+        boolean empty = 0 == unscraped.getTotalCount();
+        for (int i = 0; i < percentiles.length; i++) {
+            micros[i] = empty ? -1 : unscraped.getValueAtPercentile(percentiles[i]);
+        }
+        unscraped.reset();
+        return new Snapshot(micros, total.getTotalCount(), sumMicros.sum());
+    }
+
+    /**
+     * 最近10s的耗时分位数，与导出互不影响
+     *
+     * @param percentile
+     *             百分位，如99.0
+     * @param minCount
+     *             最少样本数
+     * @return 耗时，微秒；样本数不足时返回-1
+     */
+    public synchronized long rollingPercentileMicros(double percentile, long minCount) {
+        if (null == rolling) {
+            rolling = new Histogram[ROLLING_BUCKETS];
+            for (int i = 0; i < ROLLING_BUCKETS; i++) {
+                rolling[i] = new Histogram(HIGHEST_MICROS, SIGNIFICANT_DIGITS);
+            }
+            rollingView = new Histogram(HIGHEST_MICROS, SIGNIFICANT_DIGITS);
+            bucketStart = System.nanoTime();
+        }
+        drain();
+        rollingView.reset();
+        for (Histogram bucket : rolling) {
+            rollingView.add(bucket);
+        }
+        if (rollingView.getTotalCount() < minCount) {
+            return -1;
+        }
+        return rollingView.getValueAtPercentile(percentile);
+    }
+
+    /**
+     * 取出Recorder中的新数据，累加到总量、待导出数据及滚动窗口中
+     */
+    private void drain() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+        unscraped.add(interval);
+        if (null == rolling) {
+            return;
+        }
+        long elapsed = (System.nanoTime() - bucketStart) / BUCKET_NANOS;
+        if (elapsed > 0) {
+            for (long i = 0; i < Math.min(elapsed, ROLLING_BUCKETS); i++) {
+                rollingIndex = (rollingIndex + 1) % ROLLING_BUCKETS;
+                rolling[rollingIndex].reset();
+            }
+            bucketStart += elapsed * BUCKET_NANOS;
+        }
+        // 读取间隔内的数据都计入当前桶
+        rolling[rollingIndex].add(interval);
+    }
+
+    /**
+     * 导出用的数据
+     */
+    static final class Snapshot {
+
+        /**
+         * 区间内的分位数，微秒，与请求的百分位一一对应
+         */
+        final long[] percentileMicros;
+        final long count;
+        final long sumMicros;
+
+        Snapshot(long[] percentileMicros, long count, long sumMicros) {
+            this.percentileMicros = percentileMicros;
+            this.count = count;
+            this.sumMicros = sumMicros;
+        }
+    }
+}
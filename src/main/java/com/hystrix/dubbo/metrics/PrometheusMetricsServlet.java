@@ -0,0 +1,196 @@
+package com.hystrix.dubbo.metrics;
+
+import com.hystrix.dubbo.cluster.OutlierDetector;
+import com.hystrix.dubbo.command.HedgedInvoker;
+import com.hystrix.dubbo.limit.AdaptiveConcurrencyLimiter;
+import com.hystrix.dubbo.limit.PriorityLoadShedder;
+import com.netflix.hystrix.HystrixCircuitBreaker;
+import com.netflix.hystrix.HystrixCommandMetrics;
+import com.netflix.hystrix.HystrixEventType;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * PrometheusMetricsServlet
+ * 以prometheus文本格式导出各命令的耗时分位数及hystrix事件计数，
+ * 分位数为两次抓取之间的数据，_count/_sum为累计值
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class PrometheusMetricsServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+
+    private static final double MICROS_PER_SECOND = 1_000_000D;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType(CONTENT_TYPE);
+        try (Writer writer = resp.getWriter()) {
+            writer.write(scrape());
+        }
+    }
+
+    /**
+     * 生成prometheus文本，所有导出方式共用
+     *
+     * @return
+     */
+    public static String scrape() {
+        StringBuilder builder = new StringBuilder(4096);
+        writeLatency(builder, "hystrix_dubbo_execution_latency_seconds", "run() execution latency", Type.EXECUTION);
+        writeLatency(builder, "hystrix_dubbo_fallback_latency_seconds", "fallback latency", Type.FALLBACK);
+        writeLatency(builder, "hystrix_dubbo_queue_wait_seconds", "thread pool queue wait", Type.QUEUE_WAIT);
+        writeEvents(builder);
+        writeConcurrency(builder);
+        writePriority(builder);
+        writeHedged(builder);
+        writeOutliers(builder);
+        return builder.toString();
+    }
+
+    private enum Type {
+        EXECUTION, FALLBACK, QUEUE_WAIT
+    }
+
+    private static void writeLatency(StringBuilder builder, String name, String help, Type type) {
+        builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(name).append(" summary\n");
+        for (CommandLatencyMetrics metrics : CommandLatencyMetrics.getInstances()) {
+            LatencyRecorder recorder = type == Type.EXECUTION ? metrics.getExecution()
+                    : type == Type.FALLBACK ? metrics.getFallback() : metrics.getQueueWait();
+            LatencyRecorder.Snapshot snapshot = recorder.snapshot(PERCENTILES);
+            if (0 == snapshot.count) {
+                continue;
+            }
+            String labels = labels(metrics.getGroupKey(), metrics.getCommandKey().name());
+            for (int i = 0; i < QUANTILES.length; i++) {
+                // 两次抓取之间没有调用时分位数为NaN
+                long micros = snapshot.percentileMicros[i];
+                double seconds = micros < 0 ? Double.NaN : micros / MICROS_PER_SECOND;
+                builder.append(name).append('{').append(labels).append(",quantile=\"").append(QUANTILES[i])
+                        .append("\"} ").append(seconds).append('\n');
+            }
+            builder.append(name).append("_sum{").append(labels).append("} ")
+                    .append(snapshot.sumMicros / MICROS_PER_SECOND).append('\n');
+            builder.append(name).append("_count{").append(labels).append("} ").append(snapshot.count).append('\n');
+        }
+    }
+
+    private static void writeEvents(StringBuilder builder) {
+        builder.append("# HELP hystrix_dubbo_command_events_total hystrix command events\n");
+        builder.append("# TYPE hystrix_dubbo_command_events_total counter\n");
+        StringBuilder circuit = new StringBuilder(256);
+        circuit.append("# HELP hystrix_dubbo_circuit_open 1 if the circuit breaker is open\n");
+        circuit.append("# TYPE hystrix_dubbo_circuit_open gauge\n");
+        for (HystrixCommandMetrics metrics : HystrixCommandMetrics.getInstances()) {
+            String labels = labels(metrics.getCommandGroup().name(), metrics.getCommandKey().name());
+            for (HystrixEventType eventType : HystrixEventType.values()) {
+                builder.append("hystrix_dubbo_command_events_total{").append(labels).append(",event=\"")
+                        .append(eventType.name().toLowerCase()).append("\"} ")
+                        .append(metrics.getCumulativeCount(eventType)).append('\n');
+            }
+            HystrixCircuitBreaker breaker = HystrixCircuitBreaker.Factory.getInstance(metrics.getCommandKey());
+            circuit.append("hystrix_dubbo_circuit_open{").append(labels).append("} ")
+                    .append(null != breaker && breaker.isOpen() ? 1 : 0).append('\n');
+        }
+        builder.append(circuit);
+    }
+
+    private static void writeConcurrency(StringBuilder builder) {
+        if (AdaptiveConcurrencyLimiter.getInstances().isEmpty()) {
+            return;
+        }
+        StringBuilder inFlight = new StringBuilder(256);
+        StringBuilder rejected = new StringBuilder(256);
+        builder.append("# HELP hystrix_dubbo_concurrency_limit adaptive concurrency limit\n");
+        builder.append("# TYPE hystrix_dubbo_concurrency_limit gauge\n");
+        inFlight.append("# HELP hystrix_dubbo_concurrency_in_flight calls holding an adaptive permit\n");
+        inFlight.append("# TYPE hystrix_dubbo_concurrency_in_flight gauge\n");
+        rejected.append("# HELP hystrix_dubbo_concurrency_rejected_total calls rejected by the adaptive limit\n");
+        rejected.append("# TYPE hystrix_dubbo_concurrency_rejected_total counter\n");
+        for (AdaptiveConcurrencyLimiter limiter : AdaptiveConcurrencyLimiter.getInstances()) {
+            String labels = labels(limiter.getGroupKey(), limiter.getCommandKey().name());
+            builder.append("hystrix_dubbo_concurrency_limit{").append(labels).append("} ")
+                    .append(limiter.getLimit()).append('\n');
+            inFlight.append("hystrix_dubbo_concurrency_in_flight{").append(labels).append("} ")
+                    .append(limiter.getInFlight()).append('\n');
+            rejected.append("hystrix_dubbo_concurrency_rejected_total{").append(labels).append("} ")
+                    .append(limiter.getRejected()).append('\n');
+        }
+        builder.append(inFlight).append(rejected);
+    }
+
+    private static void writePriority(StringBuilder builder) {
+        if (PriorityLoadShedder.getInstances().isEmpty()) {
+            return;
+        }
+        builder.append("# HELP hystrix_dubbo_priority_rejected_total calls shed by priority\n");
+        builder.append("# TYPE hystrix_dubbo_priority_rejected_total counter\n");
+        for (PriorityLoadShedder shedder : PriorityLoadShedder.getInstances()) {
+            String labels = labels(shedder.getGroupKey(), shedder.getCommandKey().name());
+            for (int priority = 0; priority < PriorityLoadShedder.LEVELS; priority++) {
+                long rejected = shedder.getRejected(priority);
+                // 只导出出现过拒绝的优先级
+                if (rejected > 0) {
+                    builder.append("hystrix_dubbo_priority_rejected_total{").append(labels)
+                            .append(",priority=\"").append(priority).append("\"} ").append(rejected).append('\n');
+                }
+            }
+        }
+    }
+
+    private static void writeHedged(StringBuilder builder) {
+        if (HedgedInvoker.getInstances().isEmpty()) {
+            return;
+        }
+        builder.append("# HELP hystrix_dubbo_hedged_total backup invocations sent by hedging\n");
+        builder.append("# TYPE hystrix_dubbo_hedged_total counter\n");
+        for (HedgedInvoker hedgedInvoker : HedgedInvoker.getInstances()) {
+            builder.append("hystrix_dubbo_hedged_total{")
+                    .append(labels(hedgedInvoker.getGroupKey(), hedgedInvoker.getCommandKey().name())).append("} ")
+                    .append(hedgedInvoker.getHedged()).append('\n');
+        }
+        builder.append("# HELP hystrix_dubbo_hedge_no_backup_total hedges skipped because no other provider was available\n");
+        builder.append("# TYPE hystrix_dubbo_hedge_no_backup_total counter\n");
+        for (HedgedInvoker hedgedInvoker : HedgedInvoker.getInstances()) {
+            builder.append("hystrix_dubbo_hedge_no_backup_total{")
+                    .append(labels(hedgedInvoker.getGroupKey(), hedgedInvoker.getCommandKey().name())).append("} ")
+                    .append(hedgedInvoker.getNoBackup()).append('\n');
+        }
+    }
+
+    private static void writeOutliers(StringBuilder builder) {
+        if (OutlierDetector.getInstances().isEmpty()) {
+            return;
+        }
+        builder.append("# HELP hystrix_dubbo_provider_ejected 1 if the provider is ejected for the method\n");
+        builder.append("# TYPE hystrix_dubbo_provider_ejected gauge\n");
+        for (OutlierDetector detector : OutlierDetector.getInstances()) {
+            String labels = labels(detector.getGroupKey(), detector.getCommandKey());
+            detector.getEjections().forEach((address, ejected) -> builder.append("hystrix_dubbo_provider_ejected{")
+                    .append(labels).append(",provider=\"").append(escape(address)).append("\"} ")
+                    .append(ejected ? 1 : 0).append('\n'));
+        }
+    }
+
+    private static String labels(String group, String command) {
+        return "group=\"" + escape(group) + "\",command=\"" + escape(command) + "\"";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,107 @@
+package com.hystrix.dubbo.model;
+
+import com.alibaba.com.caucho.hessian.io.Hessian2Input;
+import com.alibaba.com.caucho.hessian.io.Hessian2Output;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * CallKey
+ * 方法 + 参数，参数按Arrays.deepEquals比较；方法key全局唯一，按引用比较；
+ * 构造方法不复制参数，只用于查找，需要长期持有的key通过{@link #copyOf}复制参数，调用方之后修改参数不影响key
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@Slf4j
+public final class CallKey {
+
+    private final MethodKey methodKey;
+    private final Object[] arguments;
+    private final int hash;
+
+    public CallKey(MethodKey methodKey, Object[] arguments) {
+        this.methodKey = methodKey;
+        this.arguments = arguments;
+        this.hash = 31 * System.identityHashCode(methodKey) + Arrays.deepHashCode(arguments);
+    }
+
+    /**
+     * 复制参数后创建key，参数都是不可变类型时只复制数组，否则以hessian2序列化深复制
+     *
+     * @param methodKey
+     * @param arguments
+     * @return
+     */
+    public static CallKey copyOf(MethodKey methodKey, Object[] arguments) {
+        return new CallKey(methodKey, copy(arguments));
+    }
+
+    private static Object[] copy(Object[] arguments) {
+        if (null == arguments || arguments.length == 0) {
+            return arguments;
+        }
+        boolean immutable = true;
+        for (Object argument : arguments) {
+            if (!isImmutable(argument)) {
+                immutable = false;
+                break;
+            }
+        }
+        if (immutable) {
+            return arguments.clone();
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            Hessian2Output output = new Hessian2Output(bytes);
+            output.writeObject(arguments);
+            output.flush();
+            Object[] copy = (Object[]) new Hessian2Input(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+            // 反序列化后的参数与原参数不相等（如没有实现equals）时仍使用原参数，保证能查找到
+            if (Arrays.deepEquals(copy, arguments)) {
+                return copy;
+            }
+        } catch (Exception e) {
+            log.debug("[HYSTRIX-SDK] copy call arguments fail", e);
+        }
+        return arguments.clone();
+    }
+
+    private static boolean isImmutable(Object argument) {
+        return null == argument || argument instanceof String || argument instanceof Number
+                && argument.getClass().getName().startsWith("java.lang.") || argument instanceof Boolean
+                || argument instanceof Character || argument instanceof Enum;
+    }
+
+    public MethodKey getMethodKey() {
+        return methodKey;
+    }
+
+    /**
+     * @return 调用参数，不要修改
+     */
+    public Object[] getArguments() {
+        return arguments;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CallKey)) {
+            return false;
+        }
+        CallKey other = (CallKey) o;
+        return methodKey == other.methodKey && hash == other.hash
+                && Arrays.deepEquals(arguments, other.arguments);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
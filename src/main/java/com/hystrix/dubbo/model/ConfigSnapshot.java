@@ -0,0 +1,156 @@
+package com.hystrix.dubbo.model;
+
+import com.alibaba.dubbo.common.extension.ExtensionLoader;
+import com.hystrix.dubbo.constants.HystrixConstants;
+import com.hystrix.dubbo.limit.RateLimiter;
+import com.hystrix.dubbo.script.FallbackScriptEngine;
+import com.hystrix.dubbo.script.ScriptHandle;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Objects;
+
+/**
+ * ConfigSnapshot
+ * 某个key解析后的配置快照，发布后不再修改，配置变更时整体替换
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@Getter
+@ToString(exclude = {"model", "scriptEngine", "degradeHandle", "fallbackHandle", "rateLimiter"})
+public final class ConfigSnapshot {
+
+    /**
+     * 配置key，{interfaceName}.{method}#{参数类型}
+     */
+    private final String key;
+    /**
+     * 版本号，每次替换递增
+     */
+    private final long version;
+    /**
+     * 原始配置内容（json内容）
+     */
+    private final String value;
+    /**
+     * 解析后的配置，只读，禁止修改
+     */
+    private final HystrixModel model;
+    /**
+     * 接口熔断降级是否打开
+     */
+    private final boolean enabled;
+    /**
+     * 手动降级是否打开
+     */
+    private final boolean degrade;
+    /**
+     * 按线程池粒度计算的线程池key
+     */
+    private final HystrixThreadPoolKey threadPoolKey;
+    /**
+     * 脚本是否静态编译
+     */
+    private final boolean staticScript;
+    /**
+     * 降级/熔断脚本引擎
+     */
+    private final FallbackScriptEngine scriptEngine;
+    /**
+     * 手动降级脚本的编译结果，没有配置脚本时为null
+     */
+    private final ScriptHandle degradeHandle;
+    /**
+     * 熔断降级脚本的编译结果，没有配置脚本时为null
+     */
+    private final ScriptHandle fallbackHandle;
+    /**
+     * 相同参数的并发调用是否合并为一次
+     */
+    private final boolean singleFlight;
+    /**
+     * 熔断打开或超时时是否返回最近一次成功的返回值
+     */
+    private final boolean lastGood;
+    /**
+     * 是否对冲调用，要求方法幂等
+     */
+    private final boolean hedged;
+    /**
+     * 限流器，随快照一起替换，没有配置限流时为null
+     */
+    private final RateLimiter rateLimiter;
+
+    public ConfigSnapshot(String key, long version, String value, HystrixModel model) {
+        this(key, version, value, model, null);
+    }
+
+    /**
+     * @param key
+     * @param version
+     * @param value
+     * @param model
+     * @param previous
+     *             被替换的快照，新脚本编译完成前继续使用其中的脚本，可以为null
+     */
+    public ConfigSnapshot(String key, long version, String value, HystrixModel model, ConfigSnapshot previous) {
+        this.key = key;
+        this.version = version;
+        this.value = value;
+        if (null == model.getHystrixConfig()) {
+            model.setHystrixConfig(new HystrixConfig());
+        }
+        this.model = model;
+        this.enabled = !Objects.equals(HystrixConstants.UNENABLE, model.getEnable());
+        this.degrade = Objects.equals(HystrixConstants.OPEN, model.getDegrade());
+        this.threadPoolKey = HystrixThreadPoolKey.Factory.asKey(model.getHystrixConfig().threadPoolKey(key));
+        this.singleFlight = Objects.equals(HystrixConstants.OPEN, model.getSingleFlight());
+        this.lastGood = Objects.equals(HystrixConstants.OPEN, model.getLastGood());
+        this.hedged = Objects.equals(HystrixConstants.OPEN, model.getIdempotent())
+                && Objects.equals(HystrixConstants.OPEN, model.getHedge());
+        this.rateLimiter = rateLimiter(model.getRateLimit());
+        this.staticScript = HystrixConstants.SCRIPT_STATIC.equalsIgnoreCase(model.getScriptMode());
+        // 扩展名不存在时抛出IllegalStateException，由调用方保留旧快照
+        this.scriptEngine = ExtensionLoader.getExtensionLoader(FallbackScriptEngine.class)
+                .getExtension(StringUtils.defaultIfEmpty(model.getScriptEngine(), HystrixConstants.SCRIPT_ENGINE_GROOVY));
+        // 脚本在后台提前编译，不占用请求线程
+        this.degradeHandle = ScriptHandle.compile(scriptEngine, model.getDegradeScript(), staticScript,
+                null == previous ? null : previous.degradeHandle);
+        this.fallbackHandle = ScriptHandle.compile(scriptEngine, model.getFallbackScript(), staticScript,
+                null == previous ? null : previous.fallbackHandle);
+    }
+
+    private static RateLimiter rateLimiter(RateLimitConfig rateLimit) {
+        if (null == rateLimit || rateLimit.getPermitsPerSecond() <= 0) {
+            return null;
+        }
+        int burst = rateLimit.getBurst() > 0 ? rateLimit.getBurst() : (int) Math.ceil(rateLimit.getPermitsPerSecond());
+        return new RateLimiter(rateLimit.getPermitsPerSecond(), burst);
+    }
+
+    public HystrixConfig getHystrixConfig() {
+        return model.getHystrixConfig();
+    }
+
+    public String getDegradeScript() {
+        return model.getDegradeScript();
+    }
+
+    /**
+     * @return 是否配置了批量方法
+     */
+    public boolean isBatchable() {
+        return StringUtils.isNotEmpty(model.getBatchMethod());
+    }
+
+    public long getLastGoodMaxStaleMillis() {
+        return model.getLastGoodMaxStaleMillis();
+    }
+
+    public String getFallbackScript() {
+        return model.getFallbackScript();
+    }
+}
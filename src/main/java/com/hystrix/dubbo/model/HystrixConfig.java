@@ -1,5 +1,6 @@
 package com.hystrix.dubbo.model;
 
+import com.hystrix.dubbo.constants.HystrixConstants;
 import lombok.Data;
 import lombok.ToString;
 
@@ -45,6 +46,28 @@ public class HystrixConfig {
      * execution.isolation.thread.timeoutInMilliseconds
      */
     private int executionTimeoutInMilliseconds = 1000;
+    /**
+     * 自适应超时，默认false；打开后按最近10s执行耗时的adaptiveTimeoutPercentile分位数加上adaptiveTimeoutMarginMillis作为超时时间，
+     * 限制在adaptiveTimeoutMinMillis和adaptiveTimeoutMaxMillis之间，样本不足时使用adaptiveTimeoutMaxMillis；
+     * 打开后忽略executionTimeoutEnabled及executionTimeoutInMilliseconds
+     */
+    private boolean adaptiveTimeoutEnabled = false;
+    /**
+     * 自适应超时使用的耗时百分位
+     */
+    private double adaptiveTimeoutPercentile = 99.0;
+    /**
+     * 自适应超时在分位数耗时上增加的余量，毫秒
+     */
+    private int adaptiveTimeoutMarginMillis = 50;
+    /**
+     * 自适应超时的下限，毫秒
+     */
+    private int adaptiveTimeoutMinMillis = 100;
+    /**
+     * 自适应超时的上限，毫秒
+     */
+    private int adaptiveTimeoutMaxMillis = 3000;
     /**
      * fallback方法的信号量配置，配置getFallback方法并发请求的信号量，如果请求超过了并发信号量限制，
      * 则不再尝试调用getFallback方法，而是快速失败，默认信号量为10
@@ -53,7 +76,9 @@ public class HystrixConfig {
     private int fallbackSemaphoreMaxConcurrentRequests = 500;
     /**
      * 隔离策略, 默认thread线程池隔离
-     * THREAD,SEMAPHORE
+     * THREAD,SEMAPHORE,WORK_STEALING
+     * WORK_STEALING：所有命令在一个共用的work-stealing线程池中执行，按线程池key限制并发（配额为maximumSize），
+     * 超时、中断、拒绝与THREAD一致，但不再为每个key创建独立线程
      * execution.isolation.strategy
      */
     private String executionIsolationStrategy = "SEMAPHORE";
@@ -63,6 +88,36 @@ public class HystrixConfig {
      * execution.isolation.semaphore.maxConcurrentRequests
      */
     private int semaphoreMaxConcurrentRequests = 100;
+    /**
+     * 并发限制方式，默认FIXED
+     * FIXED：使用semaphoreMaxConcurrentRequests；GRADIENT：根据调用耗时在adaptiveMinLimit和adaptiveMaxLimit之间自动调整，
+     * 仅对同步调用生效，hystrix信号量上限改为adaptiveMaxLimit
+     */
+    private String concurrencyLimitStrategy = HystrixConstants.LIMIT_FIXED;
+    /**
+     * GRADIENT的初始并发数
+     */
+    private int adaptiveInitialLimit = 20;
+    /**
+     * GRADIENT的最小并发数
+     */
+    private int adaptiveMinLimit = 1;
+    /**
+     * GRADIENT的最大并发数
+     */
+    private int adaptiveMaxLimit = 200;
+    /**
+     * 是否按优先级拒绝同步调用，优先级从调用的attachment {@link HystrixConstants#PRIORITY_KEY}读取，0最高
+     */
+    private boolean priorityEnabled = false;
+    /**
+     * 各优先级可以占用的并发数百分比，下标为优先级，超出长度的优先级使用最后一个
+     */
+    private int[] priorityThresholds = {100, 90, 75, 50};
+    /**
+     * 没有携带优先级时使用的优先级
+     */
+    private int defaultPriority = 1;
     /**
      * corePoolSize默认10
      */
@@ -101,6 +156,46 @@ public class HystrixConfig {
      * threadPoolRollingNumberStatisticalWindowBuckets默认10
      */
     private Integer rollingStatisticalWindowBuckets = 10;
+    /**
+     * 线程池粒度，默认INTERFACE
+     * SHARED：所有方法共用一个线程池，INTERFACE：同一接口的方法共用，METHOD：每个方法独立线程池
+     * 共用线程池的方法应使用相同的线程池配置，否则以最后刷新的配置为准
+     */
+    private String threadPoolKeyGranularity = HystrixConstants.POOL_INTERFACE;
+    /**
+     * 按提供者摘除异常实例，默认false，仅对消费端同步调用生效
+     */
+    private boolean outlierEjectionEnabled = false;
+    /**
+     * 提供者统计周期，毫秒
+     */
+    private int outlierIntervalMillis = 5000;
+    /**
+     * 一个统计周期内提供者的调用数不少于该值才判断是否摘除
+     */
+    private int outlierRequestVolumeThreshold = 20;
+    /**
+     * 提供者错误率阈值，超过后摘除
+     */
+    private int outlierErrorThresholdPercentage = 50;
+    /**
+     * 摘除时长，毫秒，到期后重新接收调用
+     */
+    private int outlierEjectionMillis = 30000;
+    /**
+     * 同时被摘除的提供者最多占比
+     */
+    private int outlierMaxEjectionPercent = 50;
+    /**
+     * 请求合并的时间窗口，毫秒，仅配置了batchMethod时有效
+     * collapser.timerDelayInMilliseconds
+     */
+    private int collapserTimerDelayInMilliseconds = 10;
+    /**
+     * 一次合并的最大请求数
+     * collapser.maxRequestsInBatch
+     */
+    private int collapserMaxRequestsInBatch = 100;
 
     public Map<String, Object> processCommand(String prefix, String commandKey) {
         Map<String, Object> result = new HashMap<>(64);
@@ -108,22 +203,136 @@ public class HystrixConfig {
         result.put(key + "circuitBreaker.sleepWindowInMilliseconds", getSleepWindowInMilliseconds());
         result.put(key + "circuitBreaker.errorThresholdPercentage", getErrorThresholdPercentage());
         result.put(key + "circuitBreaker.requestVolumeThreshold", getRequestVolumeThreshold());
-        result.put(key + "execution.timeout.enabled", isExecutionTimeoutEnabled());
+        result.put(key + "execution.timeout.enabled", hystrixTimeoutEnabled());
         result.put(key + "execution.isolation.thread.interruptOnTimeout", isThreadInterruptOnTimeout());
-        result.put(key + "execution.isolation.thread.timeoutInMilliseconds", getExecutionTimeoutInMilliseconds());
+        result.put(key + "execution.isolation.thread.timeoutInMilliseconds", hystrixTimeoutInMilliseconds());
         result.put(key + "fallback.isolation.semaphore.maxConcurrentRequests",
                 getFallbackSemaphoreMaxConcurrentRequests());
-        result.put(key + "execution.isolation.strategy", getExecutionIsolationStrategy());
-        result.put(key + "execution.isolation.semaphore.maxConcurrentRequests", getSemaphoreMaxConcurrentRequests());
+        result.put(key + "execution.isolation.strategy", hystrixIsolationStrategy());
+        result.put(key + "execution.isolation.semaphore.maxConcurrentRequests",
+                hystrixSemaphoreMaxConcurrentRequests());
         return result;
     }
 
+    /**
+     * @return hystrix是否启用超时，自适应超时时总是启用
+     */
+    public boolean hystrixTimeoutEnabled() {
+        return adaptiveTimeoutEnabled || executionTimeoutEnabled;
+    }
+
+    /**
+     * 自适应超时的初始值为上限，由AdaptiveTimeoutTuner按耗时调整
+     *
+     * @return
+     */
+    public int hystrixTimeoutInMilliseconds() {
+        return adaptiveTimeoutEnabled ? adaptiveTimeoutMaxMillis : executionTimeoutInMilliseconds;
+    }
+
+    /**
+     * @return 是否根据调用耗时调整并发数
+     */
+    public boolean isAdaptiveConcurrency() {
+        return HystrixConstants.LIMIT_GRADIENT.equalsIgnoreCase(concurrencyLimitStrategy);
+    }
+
+    /**
+     * GRADIENT模式下并发数由AdaptiveConcurrencyLimiter控制，hystrix信号量只作为上限
+     *
+     * @return
+     */
+    public int hystrixSemaphoreMaxConcurrentRequests() {
+        return isAdaptiveConcurrency() ? adaptiveMaxLimit : semaphoreMaxConcurrentRequests;
+    }
+
+    /**
+     * 按优先级拒绝时的并发数，与hystrix实际生效的并发上限一致；GRADIENT模式下使用自适应并发数，不在这里计算
+     *
+     * @return
+     */
+    public int priorityCapacity() {
+        if (HystrixConstants.WORK_STEALING.equalsIgnoreCase(executionIsolationStrategy)) {
+            return maximumSize;
+        } else if (HystrixConstants.THREAD.equalsIgnoreCase(executionIsolationStrategy)) {
+            int threads = Boolean.TRUE.equals(allowMaximumSizeToDivergeFromCoreSize) ? Math.max(coreSize, maximumSize) : coreSize;
+            return maxQueueSize > 0 ? threads + queueSizeRejectionThreshold : threads;
+        }
+        return semaphoreMaxConcurrentRequests;
+    }
+
+    /**
+     * @param priority
+     * @return 优先级可以占用的并发数百分比
+     */
+    public int priorityThreshold(int priority) {
+        if (null == priorityThresholds || priorityThresholds.length == 0) {
+            return 100;
+        }
+        return priorityThresholds[Math.min(priority, priorityThresholds.length - 1)];
+    }
+
+    /**
+     * 对应的hystrix隔离策略，WORK_STEALING按THREAD处理，无法识别时使用SEMAPHORE
+     *
+     * @return
+     */
+    public String hystrixIsolationStrategy() {
+        if (HystrixConstants.THREAD.equalsIgnoreCase(executionIsolationStrategy)
+                || HystrixConstants.WORK_STEALING.equalsIgnoreCase(executionIsolationStrategy)) {
+            return HystrixConstants.THREAD;
+        }
+        return HystrixConstants.SEMAPHORE;
+    }
+
+    /**
+     * 按线程池粒度获取线程池名称，WORK_STEALING策略的线程池名称带有前缀
+     *
+     * @param configKey
+     *             {interfaceName}.{method}#{参数类型}
+     * @return
+     */
+    public String threadPoolKey(String configKey) {
+        if (HystrixConstants.WORK_STEALING.equalsIgnoreCase(executionIsolationStrategy)) {
+            return HystrixConstants.WORK_STEALING_POOL_PREFIX + granularityKey(configKey);
+        }
+        return granularityKey(configKey);
+    }
+
+    private String granularityKey(String configKey) {
+        if (HystrixConstants.POOL_SHARED.equalsIgnoreCase(threadPoolKeyGranularity)) {
+            return HystrixConstants.SHARED_POOL_KEY;
+        }
+        if (HystrixConstants.POOL_METHOD.equalsIgnoreCase(threadPoolKeyGranularity)) {
+            return configKey;
+        }
+        // 与默认行为一致，使用接口名称（组名）
+        int end = configKey.indexOf(HystrixConstants.HASH_TAG);
+        String method = end < 0 ? configKey : configKey.substring(0, end);
+        return configKey.substring(0, method.lastIndexOf('.'));
+    }
+
     public Map<String, Object> processThreadPool(String prefix, String commandKey) {
         Map<String, Object> result = new HashMap<>(16);
         String key = prefix + commandKey + ".";
         result.put(key + "coreSize", getCoreSize());
         result.put(key + "maximumSize", getMaximumSize());
+        result.put(key + "allowMaximumSizeToDivergeFromCoreSize", getAllowMaximumSizeToDivergeFromCoreSize());
+        result.put(key + "keepAliveTimeMinutes", getKeepAliveTimeMinutes());
+        // maxQueueSize只在线程池创建时生效
+        result.put(key + "maxQueueSize", getMaxQueueSize());
+        result.put(key + "queueSizeRejectionThreshold", getQueueSizeRejectionThreshold());
+        result.put(key + "metrics.rollingStats.timeInMilliseconds", getRollingStatisticalWindowInMilliseconds());
+        result.put(key + "metrics.rollingStats.numBuckets", getRollingStatisticalWindowBuckets());
+
+        return result;
+    }
 
+    public Map<String, Object> processCollapser(String prefix, String collapserKey) {
+        Map<String, Object> result = new HashMap<>(4);
+        String key = prefix + collapserKey + ".";
+        result.put(key + "timerDelayInMilliseconds", getCollapserTimerDelayInMilliseconds());
+        result.put(key + "maxRequestsInBatch", getCollapserMaxRequestsInBatch());
         return result;
     }
 }
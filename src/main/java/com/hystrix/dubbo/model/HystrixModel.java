@@ -4,6 +4,8 @@ import com.hystrix.dubbo.constants.HystrixConstants;
 import lombok.Data;
 import lombok.ToString;
 
+import java.util.List;
+
 /**
  * HystrixModel
  *
@@ -30,6 +32,56 @@ public class HystrixModel {
      * 熔断groovy脚本
      */
     private String fallbackScript;
+    /**
+     * 脚本引擎，对应FallbackScriptEngine扩展名，默认groovy
+     */
+    private String scriptEngine = HystrixConstants.SCRIPT_ENGINE_GROOVY;
+    /**
+     * 脚本编译模式，DYNAMIC或STATIC，默认DYNAMIC，仅groovy引擎有效
+     */
+    private String scriptMode = HystrixConstants.SCRIPT_DYNAMIC;
+    /**
+     * 相同参数的并发调用共用一次调用，1为开，仅适用于幂等方法
+     */
+    private String singleFlight;
+    /**
+     * 熔断打开或调用超时时返回相同参数最近一次成功的返回值，1为开，优先于熔断脚本
+     */
+    private String lastGood;
+    /**
+     * 最近一次成功返回值的最大陈旧时间，毫秒，默认60000
+     */
+    private long lastGoodMaxStaleMillis = 60000;
+    /**
+     * 方法是否幂等，1为是；幂等方法才允许对冲调用
+     */
+    private String idempotent;
+    /**
+     * 对冲调用，1为开，仅对消费端同步调用的幂等方法生效
+     */
+    private String hedge;
+    /**
+     * 主调用超过最近10s执行耗时的该分位数仍未返回时发送备份调用，默认95
+     */
+    private double hedgeDelayPercentile = 95.0;
+    /**
+     * 备份调用数量不超过调用量的百分比，默认5
+     */
+    private int hedgeBudgetPercent = 5;
+    /**
+     * 批量方法名，配置后消费端并发的单个调用合并为一次批量调用；
+     * 批量方法的参数为List，返回与参数顺序一致的List或以参数为key的Map，原方法只能有一个参数
+     */
+    private String batchMethod;
+    /**
+     * 合并调用时不比较、也不随批量调用发送的attachment，如每次调用都不同的traceId；
+     * 其余attachment不同的调用不合并到同一批
+     */
+    private List<String> batchIgnoredAttachments;
+    /**
+     * 限流配置，不配置时不限流
+     */
+    private RateLimitConfig rateLimit;
     /**
      * 熔断相关配置
      */
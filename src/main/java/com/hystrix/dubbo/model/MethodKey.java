@@ -0,0 +1,111 @@
+package com.hystrix.dubbo.model;
+
+import com.hystrix.dubbo.constants.HystrixConstants;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Arrays;
+
+/**
+ * MethodKey
+ * 一个dubbo接口方法（接口 + 方法名 + 参数类型）对应的各类key，创建后不可变；
+ * 同时挂载该方法当前的配置快照，过滤器解析出key后直接读取，不再查询配置仓库
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@Getter
+@ToString(of = "configKey")
+public final class MethodKey {
+
+    private static final Class<?>[] EMPTY_TYPES = new Class<?>[0];
+
+    /**
+     * 配置key，{interfaceName}.{method}#{参数类型}，如(interfaceName.method#String,int)
+     */
+    private final String configKey;
+    /**
+     * 组名，使用服务接口名称
+     */
+    private final String groupKey;
+    /**
+     * 命令名，{method}#{参数类型}
+     */
+    private final String commandKeyName;
+    private final HystrixCommandGroupKey hystrixGroupKey;
+    private final HystrixCommandKey hystrixCommandKey;
+    private final Class<?> interfaceClass;
+    private final String methodName;
+    @Getter(AccessLevel.NONE)
+    private final Class<?>[] parameterTypes;
+    /**
+     * 当前配置快照，为null说明没有配置，由HystrixConfigStore维护
+     */
+    private volatile ConfigSnapshot snapshot;
+
+    public MethodKey(Class<?> interfaceClass, String methodName, Class<?>[] parameterTypes) {
+        this.interfaceClass = interfaceClass;
+        this.methodName = methodName;
+        this.parameterTypes = null == parameterTypes ? EMPTY_TYPES : parameterTypes.clone();
+
+        String typeSuffix = typeSuffix(this.parameterTypes);
+        this.groupKey = interfaceClass.getName().intern();
+        this.configKey = (groupKey + "." + methodName + typeSuffix).intern();
+        this.commandKeyName = (methodName + typeSuffix).intern();
+        this.hystrixGroupKey = HystrixCommandGroupKey.Factory.asKey(groupKey);
+        this.hystrixCommandKey = HystrixCommandKey.Factory.asKey(commandKeyName);
+    }
+
+    /**
+     * 只能由HystrixConfigStore在持有锁时调用
+     *
+     * @param snapshot
+     */
+    public void bindSnapshot(ConfigSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * 参数类型是否一致
+     *
+     * @param types
+     *             invocation参数类型
+     * @return
+     */
+    public boolean matches(Class<?>[] types) {
+        if (null == types) {
+            return parameterTypes.length == 0;
+        }
+        return Arrays.equals(parameterTypes, types);
+    }
+
+    public Class<?>[] getParameterTypes() {
+        return parameterTypes.clone();
+    }
+
+    /**
+     * 参数类型后缀，#{SimpleName},{SimpleName}
+     *
+     * @param clazz
+     * @return
+     */
+    private static String typeSuffix(Class<?>[] clazz) {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < clazz.length; i++) {
+
+            if (null == clazz[i]) {
+                continue;
+            }
+
+            if (0 == i) {
+                key.append(HystrixConstants.HASH_TAG).append(clazz[i].getSimpleName());
+                continue;
+            }
+            key.append(HystrixConstants.COMMA).append(clazz[i].getSimpleName());
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,25 @@
+package com.hystrix.dubbo.model;
+
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * RateLimitConfig
+ * 单个方法的限流配置，超过速率的调用执行熔断脚本
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@Data
+@ToString
+public class RateLimitConfig {
+
+    /**
+     * 每秒允许的调用数，不大于0时不限流
+     */
+    private double permitsPerSecond;
+    /**
+     * 允许的突发调用数，不大于0时为每秒调用数
+     */
+    private int burst;
+}
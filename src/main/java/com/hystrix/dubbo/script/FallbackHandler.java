@@ -0,0 +1,19 @@
+package com.hystrix.dubbo.script;
+
+/**
+ * FallbackHandler
+ * 降级/熔断脚本的调用入口，静态编译模式下脚本类需要实现该接口，缓存后直接调用
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@FunctionalInterface
+public interface FallbackHandler {
+
+    /**
+     * @param args
+     *             dubbo调用的原始参数
+     * @return 作为调用结果返回
+     */
+    Object fallback(Object[] args);
+}
@@ -0,0 +1,46 @@
+package com.hystrix.dubbo.script;
+
+import com.alibaba.dubbo.common.extension.SPI;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * FallbackScriptEngine
+ * 降级/熔断脚本引擎扩展点，通过dubbo SPI加载，按key配置的scriptEngine选择实现；
+ * 扩展方式：在META-INF/dubbo/com.hystrix.dubbo.script.FallbackScriptEngine中配置 名称=实现类
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@SPI(GroovyScriptEngine.NAME)
+public interface FallbackScriptEngine {
+
+    /**
+     * 获取脚本的调用入口，实现需要缓存编译结果，该方法在请求线程中调用
+     *
+     * @param script
+     * @param staticScript
+     *             是否要求静态编译，引擎不支持时忽略
+     * @return 脚本编译失败或未编译完成时返回null
+     */
+    FallbackHandler getHandler(String script, boolean staticScript);
+
+    /**
+     * 配置变更时提前编译脚本，不能阻塞调用线程太久
+     *
+     * @param script
+     * @param staticScript
+     *             是否要求静态编译，引擎不支持时忽略
+     * @return 编译结果，编译失败时异常完成或以null完成
+     */
+    CompletableFuture<FallbackHandler> precompile(String script, boolean staticScript);
+
+    /**
+     * 配置变更后旧脚本不再使用时调用，从缓存中移除编译结果；
+     * 正在执行旧脚本的线程不受影响，编译结果在没有引用后被回收
+     *
+     * @param script
+     * @param staticScript
+     */
+    void release(String script, boolean staticScript);
+}
@@ -0,0 +1,32 @@
+package com.hystrix.dubbo.script;
+
+import com.hystrix.dubbo.utils.GroovyCacheUtil;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * GroovyScriptEngine
+ * groovy脚本引擎，编译及缓存由{@link GroovyCacheUtil}完成
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class GroovyScriptEngine implements FallbackScriptEngine {
+
+    public static final String NAME = "groovy";
+
+    @Override
+    public FallbackHandler getHandler(String script, boolean staticScript) {
+        return GroovyCacheUtil.getHandler(script, staticScript);
+    }
+
+    @Override
+    public CompletableFuture<FallbackHandler> precompile(String script, boolean staticScript) {
+        return GroovyCacheUtil.precompile(script, staticScript);
+    }
+
+    @Override
+    public void release(String script, boolean staticScript) {
+        GroovyCacheUtil.release(script, staticScript);
+    }
+}
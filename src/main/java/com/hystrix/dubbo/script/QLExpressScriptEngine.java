@@ -0,0 +1,89 @@
+package com.hystrix.dubbo.script;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ql.util.express.DefaultContext;
+import com.ql.util.express.ExpressRunner;
+import com.ql.util.express.InstructionSet;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QLExpressScriptEngine
+ * QLExpress脚本引擎，适合返回常量、map等简单的降级规则；
+ * 脚本预先解析为指令集，执行时不生成类。脚本中通过args访问调用参数，如 return args[0];
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@Slf4j
+public class QLExpressScriptEngine implements FallbackScriptEngine {
+
+    public static final String NAME = "qlexpress";
+
+    /**
+     * 脚本中调用参数的变量名
+     */
+    private static final String ARGS = "args";
+
+    /**
+     * ExpressRunner线程安全，全局共用
+     */
+    private final ExpressRunner runner = new ExpressRunner();
+
+    /**
+     * 脚本内容 -> 包装了指令集的调用入口
+     */
+    private final Cache<String, FallbackHandler> handlers = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .build();
+
+    @Override
+    public FallbackHandler getHandler(String script, boolean staticScript) {
+        if (StringUtils.isBlank(script)) {
+            return null;
+        }
+        try {
+            return handlers.get(script, this::compile);
+        } catch (Exception e) {
+            log.error("[HYSTRIX-SDK] qlexpress script compile fail", e);
+        }
+        return null;
+    }
+
+    @Override
+    public CompletableFuture<FallbackHandler> precompile(String script, boolean staticScript) {
+        // 解析只在内存中生成指令集，耗时很短，直接在配置刷新线程中完成
+        return CompletableFuture.completedFuture(getHandler(script, staticScript));
+    }
+
+    @Override
+    public void release(String script, boolean staticScript) {
+        if (StringUtils.isNotBlank(script)) {
+            handlers.invalidate(script);
+        }
+    }
+
+    private FallbackHandler compile(String script) {
+        InstructionSet instructionSet;
+        try {
+            instructionSet = runner.parseInstructionSet(script);
+        } catch (Exception e) {
+            throw new IllegalStateException("qlexpress script parse fail", e);
+        }
+        log.info("[HYSTRIX-SDK] qlexpress script compiled");
+        return args -> {
+            DefaultContext<String, Object> context = new DefaultContext<>();
+            context.put(ARGS, args);
+            try {
+                return runner.execute(instructionSet, context, null, false, false, null);
+            } catch (Exception e) {
+                throw new IllegalStateException("qlexpress script execute fail", e);
+            }
+        };
+    }
+}
@@ -0,0 +1,107 @@
+package com.hystrix.dubbo.script;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ScriptHandle
+ * 配置快照中一个降级/熔断脚本的编译结果，快照创建时提前编译；
+ * 新脚本编译完成前（或编译失败时）继续使用上一个快照中已编译好的脚本，
+ * 没有可用的旧脚本时请求线程等待编译完成，等待超时计入未命中次数
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@Slf4j
+public final class ScriptHandle {
+
+    /**
+     * 等待编译超时、只能返回空结果的次数
+     */
+    private static final LongAdder MISSES = new LongAdder();
+
+    private final CompletableFuture<FallbackHandler> future;
+    /**
+     * 上一个快照中已编译好的脚本，只持有调用入口，不持有旧快照
+     */
+    private final FallbackHandler previous;
+
+    private ScriptHandle(CompletableFuture<FallbackHandler> future, FallbackHandler previous) {
+        this.future = future;
+        this.previous = previous;
+    }
+
+    /**
+     * 提前编译脚本
+     *
+     * @param engine
+     * @param script
+     * @param staticScript
+     *             是否静态编译
+     * @param previous
+     *             上一个快照中同类型的脚本，可以为null
+     * @return 脚本为空时返回null
+     */
+    public static ScriptHandle compile(FallbackScriptEngine engine, String script, boolean staticScript,
+                                       ScriptHandle previous) {
+        if (StringUtils.isBlank(script)) {
+            return null;
+        }
+        CompletableFuture<FallbackHandler> future;
+        try {
+            future = engine.precompile(script, staticScript);
+        } catch (Exception e) {
+            log.error("[HYSTRIX-SDK] script precompile fail", e);
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        return new ScriptHandle(future, null == previous ? null : previous.ready());
+    }
+
+    /**
+     * @return 已编译完成的脚本，未完成或编译失败时返回上一个脚本
+     */
+    private FallbackHandler ready() {
+        FallbackHandler handler = future.isDone() && !future.isCompletedExceptionally() ? future.getNow(null) : null;
+        return null != handler ? handler : previous;
+    }
+
+    /**
+     * 获取脚本的调用入口
+     *
+     * @param waitMillis
+     *             没有可用的旧脚本时等待编译完成的最长时间，一般为命令的超时时间
+     * @return 编译失败或等待超时时返回null
+     */
+    public FallbackHandler get(long waitMillis) {
+        FallbackHandler handler = ready();
+        if (null != handler || future.isDone()) {
+            return handler;
+        }
+        try {
+            return future.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            MISSES.increment();
+            log.warn("[HYSTRIX-SDK] script not compiled in {}ms, misses:{}", waitMillis, MISSES.sum());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            MISSES.increment();
+        } catch (ExecutionException e) {
+            // 编译失败已在编译时记录日志
+        }
+        return null;
+    }
+
+    /**
+     * @return 等待编译超时的累计次数
+     */
+    public static long getMisses() {
+        return MISSES.sum();
+    }
+}
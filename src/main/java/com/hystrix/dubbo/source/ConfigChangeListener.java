@@ -0,0 +1,22 @@
+package com.hystrix.dubbo.source;
+
+/**
+ * ConfigChangeListener
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public interface ConfigChangeListener {
+
+    /**
+     * 单个key的配置发生变化
+     *
+     * @param key
+     */
+    void onChange(String key);
+
+    /**
+     * 订阅建立或重连，期间可能丢失了变更消息，需要全量同步
+     */
+    void onResync();
+}
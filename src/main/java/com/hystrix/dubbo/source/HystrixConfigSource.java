@@ -0,0 +1,53 @@
+package com.hystrix.dubbo.source;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HystrixConfigSource
+ * 配置来源，提供按key读取配置内容（json内容）以及变更通知
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public interface HystrixConfigSource {
+
+    /**
+     * 获取配置内容
+     *
+     * @param key
+     *             {interfaceName}.{method}#{参数类型}
+     * @return 配置内容，不存在时返回空字符串
+     * @throws RuntimeException
+     *             读取失败时抛出，调用方应保留原有配置
+     */
+    String get(String key);
+
+    /**
+     * 批量获取配置内容
+     *
+     * @param keys
+     * @return key -> 配置内容，不存在的key对应空字符串；读取失败的key不包含在结果中，调用方应保留原有配置
+     */
+    default Map<String, String> batchGet(Collection<String> keys) {
+        Map<String, String> result = new HashMap<>(keys.size() * 2);
+        for (String key : keys) {
+            result.put(key, get(key));
+        }
+        return result;
+    }
+
+    /**
+     * 订阅配置变更
+     *
+     * @param listener
+     * @return 是否支持推送，不支持时调用方需定时轮询
+     */
+    boolean subscribe(ConfigChangeListener listener);
+
+    /**
+     * 释放资源
+     */
+    void close();
+}
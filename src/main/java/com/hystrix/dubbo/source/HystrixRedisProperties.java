@@ -0,0 +1,46 @@
+package com.hystrix.dubbo.source;
+
+import lombok.Data;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * HystrixRedisProperties
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@Data
+@ToString(exclude = "password")
+@ConfigurationProperties(prefix = "hystrix.redis")
+public class HystrixRedisProperties {
+
+    private String host;
+    private int port = 6379;
+    private String password;
+    private int database = 0;
+    /**
+     * 连接及读取超时时间，毫秒
+     */
+    private int timeout = 2000;
+    /**
+     * 连接池最大连接数
+     */
+    private int maxTotal = 8;
+    /**
+     * 配置key前缀，redis中的key为{keyPrefix}{interfaceName}.{method}#{参数类型}
+     */
+    private String keyPrefix = "hystrix:";
+    /**
+     * 配置变更通知频道，消息内容为变更的key（不含前缀）
+     */
+    private String channel = "hystrix:config:change";
+    /**
+     * 批量获取配置时每次MGET的key数量
+     */
+    private int batchSize = 200;
+    /**
+     * 订阅断开后的重连间隔，毫秒
+     */
+    private long reconnectIntervalMillis = 3000;
+}
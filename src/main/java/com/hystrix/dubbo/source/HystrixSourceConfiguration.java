@@ -0,0 +1,26 @@
+package com.hystrix.dubbo.source;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * HystrixSourceConfiguration
+ * 配置了hystrix.redis.host时使用redis作为配置来源，通过spring.factories自动配置
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@Configuration
+@EnableConfigurationProperties(HystrixRedisProperties.class)
+public class HystrixSourceConfiguration {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean(HystrixConfigSource.class)
+    @ConditionalOnProperty(prefix = "hystrix.redis", name = "host")
+    public HystrixConfigSource redisHystrixConfigSource(HystrixRedisProperties properties) {
+        return new RedisHystrixConfigSource(properties);
+    }
+}
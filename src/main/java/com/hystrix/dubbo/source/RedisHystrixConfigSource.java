@@ -0,0 +1,167 @@
+package com.hystrix.dubbo.source;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang.StringUtils;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Protocol;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RedisHystrixConfigSource
+ * 基于redis的配置来源，通过pub/sub推送变更的key，只刷新受影响的配置
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@Slf4j
+public class RedisHystrixConfigSource implements HystrixConfigSource {
+
+    private final HystrixRedisProperties properties;
+    private final JedisPool jedisPool;
+    private volatile boolean closed = false;
+    private volatile JedisPubSub pubSub;
+    private Thread subscriber;
+
+    public RedisHystrixConfigSource(HystrixRedisProperties properties) {
+        this.properties = properties;
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(properties.getMaxTotal());
+        // 订阅独占一个连接
+        poolConfig.setMaxIdle(properties.getMaxTotal());
+        this.jedisPool = new JedisPool(poolConfig, properties.getHost(), properties.getPort(),
+                properties.getTimeout(), StringUtils.defaultIfEmpty(properties.getPassword(), null),
+                properties.getDatabase());
+    }
+
+    @Override
+    public String get(String key) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            String value = jedis.get(properties.getKeyPrefix() + key);
+            return null == value ? "" : value;
+        }
+    }
+
+    @Override
+    public Map<String, String> batchGet(Collection<String> keys) {
+        Map<String, String> result = new HashMap<>(keys.size() * 2);
+        if (keys.isEmpty()) {
+            return result;
+        }
+        int batchSize = Math.max(1, properties.getBatchSize());
+        List<String> chunk = new ArrayList<>(Math.min(batchSize, keys.size()));
+        try (Jedis jedis = jedisPool.getResource()) {
+            for (String key : keys) {
+                chunk.add(key);
+                if (chunk.size() >= batchSize) {
+                    mget(jedis, chunk, result);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                mget(jedis, chunk, result);
+            }
+        } catch (Exception e) {
+            // 已读取的结果照常返回，其余key保留原有配置
+            log.error("[HYSTRIX-SDK] batch fetch config fail, fetched {}/{}", result.size(), keys.size(), e);
+        }
+        return result;
+    }
+
+    private void mget(Jedis jedis, List<String> chunk, Map<String, String> result) {
+        String[] redisKeys = new String[chunk.size()];
+        for (int i = 0; i < redisKeys.length; i++) {
+            redisKeys[i] = properties.getKeyPrefix() + chunk.get(i);
+        }
+        List<String> values = jedis.mget(redisKeys);
+        for (int i = 0; i < redisKeys.length; i++) {
+            String value = values.get(i);
+            result.put(chunk.get(i), null == value ? "" : value);
+        }
+    }
+
+    @Override
+    public synchronized boolean subscribe(ConfigChangeListener listener) {
+        if (null != subscriber) {
+            throw new IllegalStateException("already subscribed");
+        }
+        subscriber = new Thread(() -> listen(listener), "hystrix-config-subscriber");
+        subscriber.setDaemon(true);
+        subscriber.start();
+        return true;
+    }
+
+    private void listen(ConfigChangeListener listener) {
+        while (!closed) {
+            JedisPubSub current = new JedisPubSub() {
+                @Override
+                public void onSubscribe(String channel, int subscribedChannels) {
+                    log.info("[HYSTRIX-SDK] subscribed channel:{}", channel);
+                    listener.onResync();
+                }
+
+                @Override
+                public void onMessage(String channel, String message) {
+                    if (StringUtils.isBlank(message)) {
+                        return;
+                    }
+                    try {
+                        listener.onChange(message);
+                    } catch (Exception e) {
+                        log.error("[HYSTRIX-SDK] handle config change fail, key:{}", message, e);
+                    }
+                }
+            };
+            pubSub = current;
+            // subscribe会阻塞，读超时设为0
+            try (Jedis jedis = new Jedis(properties.getHost(), properties.getPort(), properties.getTimeout(), 0)) {
+                if (StringUtils.isNotEmpty(properties.getPassword())) {
+                    jedis.auth(properties.getPassword());
+                }
+                if (Protocol.DEFAULT_DATABASE != properties.getDatabase()) {
+                    jedis.select(properties.getDatabase());
+                }
+                jedis.subscribe(current, properties.getChannel());
+            } catch (Exception e) {
+                if (closed) {
+                    return;
+                }
+                log.error("[HYSTRIX-SDK] subscribe channel:{} fail, retry in {}ms", properties.getChannel(),
+                        properties.getReconnectIntervalMillis(), e);
+            }
+            if (!closed) {
+                sleep(properties.getReconnectIntervalMillis());
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        JedisPubSub current = pubSub;
+        if (null != current && current.isSubscribed()) {
+            try {
+                current.unsubscribe();
+            } catch (Exception e) {
+                log.warn("[HYSTRIX-SDK] unsubscribe fail", e);
+            }
+        }
+        jedisPool.close();
+    }
+}
@@ -0,0 +1,189 @@
+package com.hystrix.dubbo.strategy;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * QuotaThreadPoolExecutor
+ * 不持有线程的"线程池"：任务提交到共用的work-stealing线程池执行，
+ * 每个key只限制同时执行的任务数（permit配额），超过配额直接拒绝，由hystrix走线程池拒绝的降级逻辑。
+ * hystrix动态调整coreSize/maximumSize时调整的是配额；
+ * 阻塞时补充的线程数受所有key共用的上限限制，共用线程池的线程总数不超过并行度加上该上限
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class QuotaThreadPoolExecutor extends ThreadPoolExecutor {
+
+    private final String name;
+    private final ExecutorService shared;
+    /**
+     * 所有key共用的补充线程许可
+     */
+    private final Semaphore compensation;
+    private final AtomicInteger inflight = new AtomicInteger(0);
+    private final AtomicLong submitted = new AtomicLong(0);
+    private final AtomicLong completed = new AtomicLong(0);
+    private volatile int corePoolSize;
+    private volatile int maximumPoolSize;
+    private volatile int largestPoolSize;
+
+    public QuotaThreadPoolExecutor(String name, ExecutorService shared, Semaphore compensation, int corePoolSize,
+                                   int maximumPoolSize) {
+        // 父类的线程和队列都不会被使用
+        super(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+        this.name = name;
+        this.shared = shared;
+        this.compensation = compensation;
+        this.corePoolSize = corePoolSize;
+        this.maximumPoolSize = Math.max(corePoolSize, maximumPoolSize);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (!acquire()) {
+            throw new RejectedExecutionException("[HYSTRIX-SDK] quota of " + name + " exhausted, quota:"
+                    + maximumPoolSize);
+        }
+        submitted.incrementAndGet();
+        try {
+            shared.execute(() -> {
+                try {
+                    runBlocking(command);
+                } finally {
+                    release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release();
+            throw e;
+        }
+    }
+
+    /**
+     * dubbo调用会阻塞工作线程，拿到补充许可时通过ManagedBlocker执行，共用线程池在线程阻塞时补充线程，
+     * 一个卡住的提供者不会占满共用线程池；许可用完后直接在当前线程阻塞执行，不再补充线程
+     *
+     * @param command
+     */
+    private void runBlocking(Runnable command) {
+        if (!compensation.tryAcquire()) {
+            command.run();
+            return;
+        }
+        try {
+            ForkJoinPool.managedBlock(new BlockingTask(command));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            compensation.release();
+        }
+    }
+
+    private static final class BlockingTask implements ForkJoinPool.ManagedBlocker {
+
+        private final Runnable command;
+        private boolean done;
+
+        BlockingTask(Runnable command) {
+            this.command = command;
+        }
+
+        @Override
+        public boolean block() {
+            command.run();
+            done = true;
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return done;
+        }
+    }
+
+    private boolean acquire() {
+        for (;;) {
+            int current = inflight.get();
+            if (current >= maximumPoolSize) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                if (current + 1 > largestPoolSize) {
+                    largestPoolSize = current + 1;
+                }
+                return true;
+            }
+        }
+    }
+
+    private void release() {
+        inflight.decrementAndGet();
+        completed.incrementAndGet();
+    }
+
+    @Override
+    public void setCorePoolSize(int corePoolSize) {
+        this.corePoolSize = corePoolSize;
+        if (maximumPoolSize < corePoolSize) {
+            maximumPoolSize = corePoolSize;
+        }
+    }
+
+    @Override
+    public int getCorePoolSize() {
+        return corePoolSize;
+    }
+
+    @Override
+    public void setMaximumPoolSize(int maximumPoolSize) {
+        this.maximumPoolSize = Math.max(corePoolSize, maximumPoolSize);
+    }
+
+    @Override
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    @Override
+    public void setKeepAliveTime(long time, TimeUnit unit) {
+        // 不持有线程，忽略
+    }
+
+    @Override
+    public int getActiveCount() {
+        return inflight.get();
+    }
+
+    @Override
+    public int getPoolSize() {
+        return inflight.get();
+    }
+
+    @Override
+    public int getLargestPoolSize() {
+        return largestPoolSize;
+    }
+
+    @Override
+    public long getTaskCount() {
+        return submitted.get();
+    }
+
+    @Override
+    public long getCompletedTaskCount() {
+        return completed.get();
+    }
+
+    @Override
+    public String toString() {
+        return "QuotaThreadPoolExecutor[" + name + ", inflight=" + inflight.get() + ", quota=" + maximumPoolSize + "]";
+    }
+}
@@ -0,0 +1,129 @@
+package com.hystrix.dubbo.strategy;
+
+import com.hystrix.dubbo.constants.HystrixConstants;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.HystrixThreadPoolProperties;
+import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.netflix.hystrix.strategy.concurrency.HystrixConcurrencyStrategy;
+import com.netflix.hystrix.strategy.concurrency.HystrixConcurrencyStrategyDefault;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestVariable;
+import com.netflix.hystrix.strategy.concurrency.HystrixRequestVariableLifecycle;
+import com.netflix.hystrix.strategy.properties.HystrixProperty;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WorkStealingConcurrencyStrategy
+ * 隔离策略为WORK_STEALING的命令在共用的work-stealing线程池中执行，每个线程池key只是一组permit配额；
+ * 其余线程池以及所有其它行为委托给默认的HystrixConcurrencyStrategy
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@Slf4j
+public class WorkStealingConcurrencyStrategy extends HystrixConcurrencyStrategy {
+
+    /**
+     * 共用线程池的并行度，默认CPU核数 * 4
+     */
+    private static final String PARALLELISM = "hystrix.dubbo.workStealing.parallelism";
+
+    /**
+     * 调用阻塞时共用线程池最多补充的线程数，默认与并行度相同
+     */
+    private static final String MAX_COMPENSATION = "hystrix.dubbo.workStealing.maxCompensation";
+
+    /**
+     * 是否在启动时注册，默认true；应用需要注册自己的并发策略时关闭
+     */
+    private static final String ENABLED = "hystrix.dubbo.workStealing.enabled";
+
+    private final HystrixConcurrencyStrategy delegate;
+    private final ForkJoinPool shared;
+    private final Semaphore compensation;
+
+    private WorkStealingConcurrencyStrategy(HystrixConcurrencyStrategy delegate) {
+        this.delegate = delegate;
+        int parallelism = Integer.getInteger(PARALLELISM, Runtime.getRuntime().availableProcessors() * 4);
+        this.shared = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("hystrix-work-stealing-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, true);
+        this.compensation = new Semaphore(Integer.getInteger(MAX_COMPENSATION, parallelism));
+    }
+
+    /**
+     * 启动时注册到HystrixPlugins，不重置已注册的插件；hystrix已经初始化或其它代码已注册并发策略时无法注册，
+     * WORK_STEALING的命令退化为每个线程池key独立的线程池
+     *
+     * @return 是否已注册
+     */
+    public static synchronized boolean install() {
+        if (!Boolean.parseBoolean(System.getProperty(ENABLED, "true"))) {
+            return false;
+        }
+        try {
+            HystrixPlugins.getInstance().registerConcurrencyStrategy(
+                    new WorkStealingConcurrencyStrategy(HystrixConcurrencyStrategyDefault.getInstance()));
+            log.info("[HYSTRIX-SDK] work-stealing concurrency strategy installed");
+            return true;
+        } catch (IllegalStateException e) {
+            HystrixConcurrencyStrategy current = HystrixPlugins.getInstance().getConcurrencyStrategy();
+            if (current instanceof WorkStealingConcurrencyStrategy) {
+                return true;
+            }
+            log.warn("[HYSTRIX-SDK] work-stealing concurrency strategy not installed, registered:{}, "
+                    + "WORK_STEALING commands use a thread pool per key", current.getClass().getName());
+            return false;
+        }
+    }
+
+    public static boolean isWorkStealing(HystrixThreadPoolKey threadPoolKey) {
+        return threadPoolKey.name().startsWith(HystrixConstants.WORK_STEALING_POOL_PREFIX);
+    }
+
+    @Override
+    public ThreadPoolExecutor getThreadPool(HystrixThreadPoolKey threadPoolKey,
+                                            HystrixThreadPoolProperties threadPoolProperties) {
+        if (!isWorkStealing(threadPoolKey)) {
+            return delegate.getThreadPool(threadPoolKey, threadPoolProperties);
+        }
+        log.info("[HYSTRIX-SDK] work-stealing quota created, key:{}", threadPoolKey.name());
+        return new QuotaThreadPoolExecutor(threadPoolKey.name(), shared, compensation,
+                threadPoolProperties.coreSize().get(), threadPoolProperties.actualMaximumSize());
+    }
+
+    @Override
+    public ThreadPoolExecutor getThreadPool(HystrixThreadPoolKey threadPoolKey,
+                                            HystrixProperty<Integer> corePoolSize,
+                                            HystrixProperty<Integer> maximumPoolSize,
+                                            HystrixProperty<Integer> keepAliveTime, TimeUnit unit,
+                                            BlockingQueue<Runnable> workQueue) {
+        return delegate.getThreadPool(threadPoolKey, corePoolSize, maximumPoolSize, keepAliveTime, unit,
+                workQueue);
+    }
+
+    @Override
+    public BlockingQueue<Runnable> getBlockingQueue(int maxQueueSize) {
+        return delegate.getBlockingQueue(maxQueueSize);
+    }
+
+    @Override
+    public <T> Callable<T> wrapCallable(Callable<T> callable) {
+        return delegate.wrapCallable(callable);
+    }
+
+    @Override
+    public <T> HystrixRequestVariable<T> getRequestVariable(HystrixRequestVariableLifecycle<T> rv) {
+        return delegate.getRequestVariable(rv);
+    }
+}
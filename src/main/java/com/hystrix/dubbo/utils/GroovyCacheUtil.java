@@ -1,21 +1,33 @@
 package com.hystrix.dubbo.utils;
 
-import com.alibaba.fastjson.JSON;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-import com.hystrix.dubbo.constants.HystrixConstants;
-import com.hystrix.dubbo.model.HystrixModel;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.hystrix.dubbo.script.FallbackHandler;
 import groovy.lang.GroovyClassLoader;
 import groovy.lang.GroovyObject;
+import groovy.transform.CompileStatic;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.StringUtils;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.customizers.ASTTransformationCustomizer;
 
-import java.util.Optional;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 /**
  * GroovyCacheUtil
+ * 按脚本内容的哈希缓存编译结果，脚本内容不变不会重新编译；编译在后台线程中完成，
+ * 每个脚本使用独立的GroovyClassLoader，配置变更或缓存淘汰时只移除引用不关闭classloader，
+ * 正在执行的降级不受影响，没有引用后脚本类和classloader随GC卸载；
+ * 静态编译模式下脚本类需要实现{@link FallbackHandler}，调用时不经过metaClass分派
  *
  * @author liuruizhi
  * @Date 2021/8/10
@@ -23,80 +35,219 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class GroovyCacheUtil {
 
-    private static LoadingCache<String, Optional<GroovyObject>> localMemoryCache = CacheBuilder.newBuilder()
+    /**
+     * 请求线程等待编译完成的最长时间，毫秒
+     */
+    private static final long COMPILE_WAIT_MILLIS = 200;
+
+    private static final String FALLBACK = "fallback";
+
+    /**
+     * 静态编译结果的缓存key后缀，与动态编译结果区分
+     */
+    private static final String STATIC_SUFFIX = "-static";
+
+    private static final ExecutorService COMPILER = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), new ThreadFactoryBuilder()
+            .setNameFormat("hystrix-groovy-compiler-%d").setDaemon(true).build());
+
+    /**
+     * 脚本内容 -> 缓存key，key按引用比较，配置快照被替换后旧脚本自动回收
+     */
+    private static final Cache<String, ScriptKey> SCRIPT_HASH = Caffeine.newBuilder()
+            .weakKeys()
+            .build();
+
+    /**
+     * 哈希(+编译模式) -> 编译结果，只用于相同内容的脚本共用一次编译，
+     * 配置快照自己持有用到的编译结果，淘汰后不影响已发布的快照
+     */
+    private static final AsyncCache<String, CompiledScript> COMPILED = Caffeine.newBuilder()
             .maximumSize(1000)
-            .expireAfterWrite(30, TimeUnit.MINUTES)
-            .refreshAfterWrite(10, TimeUnit.SECONDS)
-            .build(new CacheLoader<String, Optional<GroovyObject>>() {
-                @Override
-                public Optional<GroovyObject> load(String key) throws Exception {
-                    return fetchData(key);
-                }
-            });
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .executor(COMPILER)
+            .buildAsync();
 
+    private GroovyCacheUtil() {
+    }
 
-    private static Optional<GroovyObject> fetchData(String key) {
-        if (StringUtils.isBlank(key) || key.lastIndexOf(HystrixConstants.H_LINE) <= 0) {
-            return Optional.empty();
-        }
-        String[] keys = key.split(HystrixConstants.H_LINE);
-        // TODO 获取配置内容（json内容）
-        String value = "";
-        if (StringUtils.isEmpty(value)) {
-            return Optional.empty();
-        }
-        try {
-            HystrixModel hystrix = JSON.parseObject(value, HystrixModel.class);
-            log.info("[HYSTRIX-MODEL] is {}, str {}", hystrix, value);
-            if (null == hystrix) {
-                return Optional.empty();
-            }
-            // 降级脚本处理逻辑
-            if (HystrixConstants.DEGRADE.equals(keys[1]) && StringUtils.isNotBlank(hystrix.getDegradeScript())) {
-                String md5Key = getMd5Key(hystrix.getDegradeScript());
-                GroovyClassLoader groovyClassLoader = new GroovyClassLoader();
-                Class clazz = groovyClassLoader.parseClass(hystrix.getDegradeScript(), md5Key);
-                GroovyObject object = (GroovyObject) clazz.newInstance();
-
-                return Optional.ofNullable(object);
-            }
-            // 熔断脚本处理逻辑
-            if (HystrixConstants.FALLBACK.equals(keys[1]) && StringUtils.isNotBlank(hystrix.getFallbackScript())) {
-                String md5Key = getMd5Key(hystrix.getFallbackScript());
-                GroovyClassLoader groovyClassLoader = new GroovyClassLoader();
-                Class clazz = groovyClassLoader.parseClass(hystrix.getFallbackScript(), md5Key);
-                GroovyObject object = (GroovyObject) clazz.newInstance();
-
-                return Optional.ofNullable(object);
-            }
-        } catch (Exception e) {
-            log.error("hystrixConfig to object fail", e);
-        }
-        return Optional.empty();
+    /**
+     * 获取动态编译的脚本实例，未编译完成时最多等待{@link #COMPILE_WAIT_MILLIS}毫秒
+     *
+     * @param script
+     * @return 脚本为空、编译失败或未在等待时间内编译完成时返回null
+     */
+    public static <T> T getValue(String script) {
+        CompiledScript compiled = getCompiled(script, false);
+        return null == compiled ? null : (T) compiled.getInstance();
     }
 
-    public static <T> T getValue(String key) {
+    /**
+     * 获取脚本的调用入口，未编译完成时最多等待{@link #COMPILE_WAIT_MILLIS}毫秒；
+     * 命令中执行降级使用配置快照提前编译好的{@link com.hystrix.dubbo.script.ScriptHandle}，不经过该方法
+     *
+     * @param script
+     * @param staticScript
+     *             是否静态编译
+     * @return 脚本为空、编译失败或未在等待时间内编译完成时返回null
+     */
+    public static FallbackHandler getHandler(String script, boolean staticScript) {
+        CompiledScript compiled = getCompiled(script, staticScript);
+        return null == compiled ? null : compiled.getHandler();
+    }
 
+    private static CompiledScript getCompiled(String script, boolean staticScript) {
+        if (StringUtils.isBlank(script)) {
+            return null;
+        }
+        CompletableFuture<CompiledScript> future = compile(script, staticScript);
         try {
-            Optional<GroovyObject> value = localMemoryCache.get(key);
-            if (value.isPresent()) {
-                return (T) value.get();
+            CompiledScript compiled = future.getNow(null);
+            if (null == compiled) {
+                compiled = future.get(COMPILE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
             }
-            return null;
+            return compiled;
         } catch (Exception ex) {
-            log.error("获取缓存异常, key:{} ", key, ex);
+            ScriptKey scriptKey = SCRIPT_HASH.getIfPresent(script);
+            log.error("获取脚本异常, hash:{} ", null == scriptKey ? null : scriptKey.hashKey, ex);
         }
         return null;
     }
 
     /**
+     * 提前在后台动态编译脚本，不阻塞调用线程
+     *
+     * @param script
+     */
+    public static void precompile(String script) {
+        precompile(script, false);
+    }
+
+    /**
+     * 提前在后台编译脚本，不阻塞调用线程
+     *
      * @param script
-     * @return
+     * @param staticScript
+     *             是否静态编译
+     * @return 脚本的调用入口，编译失败时异常完成，脚本为空时以null完成
      */
-    private static String getMd5Key(String script) {
-        // TODO Md5Utils.MD5Encode(script);对脚本进行MD5处理作为缓存key
-        String key = "";
+    public static CompletableFuture<FallbackHandler> precompile(String script, boolean staticScript) {
+        if (StringUtils.isBlank(script)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return compile(script, staticScript).thenApply(CompiledScript::getHandler);
+    }
 
-        return key;
+    /**
+     * 从缓存中移除脚本的编译结果，不关闭classloader，仍在使用的线程和快照不受影响
+     *
+     * @param script
+     * @param staticScript
+     *             是否静态编译
+     */
+    public static void release(String script, boolean staticScript) {
+        if (StringUtils.isBlank(script)) {
+            return;
+        }
+        String hashKey = getHashKey(script);
+        COMPILED.synchronous().invalidate(staticScript ? hashKey + STATIC_SUFFIX : hashKey);
+        log.info("[HYSTRIX-SDK] groovy script released, hash:{}, static:{}", hashKey, staticScript);
+    }
+
+    private static CompletableFuture<CompiledScript> compile(String script, boolean staticScript) {
+        ScriptKey scriptKey = SCRIPT_HASH.get(script, ScriptKey::new);
+        String cacheKey = staticScript ? scriptKey.staticKey : scriptKey.hashKey;
+        // 已编译时不创建加载函数
+        CompletableFuture<CompiledScript> future = COMPILED.getIfPresent(cacheKey);
+        if (null != future) {
+            return future;
+        }
+        return COMPILED.get(cacheKey, (key, executor) -> CompletableFuture.supplyAsync(
+                () -> CompiledScript.compile(scriptKey.hashKey, script, staticScript), executor));
+    }
+
+    /**
+     * 脚本对应的缓存key，按脚本计算一次
+     */
+    private static final class ScriptKey {
+
+        private final String hashKey;
+        private final String staticKey;
+
+        ScriptKey(String script) {
+            this.hashKey = getHashKey(script);
+            this.staticKey = hashKey + STATIC_SUFFIX;
+        }
+    }
+
+    /**
+     * @param script
+     * @return 脚本内容的murmur3哈希，作为缓存key和脚本类的文件名
+     */
+    private static String getHashKey(String script) {
+        return Hashing.murmur3_128().hashString(script, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * 编译后的脚本，脚本类由独立的classloader加载
+     */
+    private static final class CompiledScript {
+
+        private final Object instance;
+        private final FallbackHandler handler;
+
+        private CompiledScript(Object instance, FallbackHandler handler) {
+            this.instance = instance;
+            this.handler = handler;
+        }
+
+        static CompiledScript compile(String hashKey, String script, boolean staticScript) {
+            GroovyClassLoader classLoader = new GroovyClassLoader(GroovyCacheUtil.class.getClassLoader(),
+                    compilerConfiguration(staticScript));
+            try {
+                Class<?> clazz = classLoader.parseClass(script, "Script_" + hashKey + ".groovy");
+                Object instance = clazz.newInstance();
+                FallbackHandler handler;
+                if (instance instanceof FallbackHandler) {
+                    handler = (FallbackHandler) instance;
+                } else if (staticScript) {
+                    throw new IllegalStateException("static script must implement " + FallbackHandler.class.getName());
+                } else {
+                    GroovyObject groovyObject = (GroovyObject) instance;
+                    handler = args -> groovyObject.invokeMethod(FALLBACK, args);
+                }
+                log.info("[HYSTRIX-SDK] groovy script compiled, hash:{}, static:{}", hashKey, staticScript);
+                return new CompiledScript(instance, handler);
+            } catch (Exception e) {
+                log.error("[HYSTRIX-SDK] groovy script compile fail, hash:{}", hashKey, e);
+                close(classLoader);
+                throw new IllegalStateException("groovy script compile fail, hash:" + hashKey, e);
+            }
+        }
+
+        private static CompilerConfiguration compilerConfiguration(boolean staticScript) {
+            CompilerConfiguration configuration = new CompilerConfiguration();
+            if (staticScript) {
+                configuration.addCompilationCustomizers(new ASTTransformationCustomizer(CompileStatic.class));
+            }
+            return configuration;
+        }
+
+        Object getInstance() {
+            return instance;
+        }
+
+        FallbackHandler getHandler() {
+            return handler;
+        }
+
+        private static void close(GroovyClassLoader classLoader) {
+            classLoader.clearCache();
+            try {
+                classLoader.close();
+            } catch (IOException e) {
+                log.warn("[HYSTRIX-SDK] close groovy classloader fail", e);
+            }
+        }
     }
 }
@@ -0,0 +1,118 @@
+package com.hystrix.dubbo.utils;
+
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.hystrix.dubbo.listener.HystrixConfigStore;
+import com.hystrix.dubbo.listener.HystrixDynamicSource;
+import com.hystrix.dubbo.model.MethodKey;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * MethodKeyRegistry
+ * 按(接口, 方法, 参数类型)缓存已解析的key，每个方法只拼装一次，后续调用直接复用
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+@Slf4j
+public class MethodKeyRegistry {
+
+    /**
+     * 接口 -> 方法名 -> 重载方法的key（写时复制）
+     */
+    private static final ConcurrentMap<Class<?>, ConcurrentMap<String, MethodKey[]>> REGISTRY =
+            new ConcurrentHashMap<>(256);
+    /**
+     * 配置key -> key，配置变更时据此找到需要更新快照的方法
+     */
+    private static final ConcurrentMap<String, MethodKey> BY_CONFIG_KEY = new ConcurrentHashMap<>(256);
+
+    private MethodKeyRegistry() {
+    }
+
+    public static MethodKey resolve(Invoker<?> invoker, Invocation invocation) {
+        return resolve(invoker.getInterface(), invocation.getMethodName(), invocation.getParameterTypes());
+    }
+
+    /**
+     * 获取方法对应的key，已注册过的方法不会产生新的对象
+     *
+     * @param interfaceClass
+     * @param method
+     * @param parameterTypes
+     *             invocation参数类型
+     * @return
+     */
+    public static MethodKey resolve(Class<?> interfaceClass, String method, Class<?>[] parameterTypes) {
+        MethodKey methodKey = find(interfaceClass, method, parameterTypes);
+        return null != methodKey ? methodKey : register(interfaceClass, method, parameterTypes, true);
+    }
+
+    /**
+     * 批量登记方法，新登记的key不逐个加载配置，调用方登记完成后执行一次HystrixDynamicSource.fillConfig
+     *
+     * @param interfaceClass
+     * @param method
+     * @param parameterTypes
+     * @return
+     */
+    public static MethodKey register(Class<?> interfaceClass, String method, Class<?>[] parameterTypes) {
+        MethodKey methodKey = find(interfaceClass, method, parameterTypes);
+        return null != methodKey ? methodKey : register(interfaceClass, method, parameterTypes, false);
+    }
+
+    /**
+     * @param configKey
+     * @return 方法还没有被调用过时返回null
+     */
+    public static MethodKey get(String configKey) {
+        return BY_CONFIG_KEY.get(configKey);
+    }
+
+    private static MethodKey find(Class<?> interfaceClass, String method, Class<?>[] parameterTypes) {
+        ConcurrentMap<String, MethodKey[]> methods = REGISTRY.get(interfaceClass);
+        if (null != methods) {
+            MethodKey[] keys = methods.get(method);
+            if (null != keys) {
+                for (MethodKey key : keys) {
+                    if (key.matches(parameterTypes)) {
+                        return key;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static synchronized MethodKey register(Class<?> interfaceClass, String method, Class<?>[] parameterTypes,
+                                                   boolean refresh) {
+        ConcurrentMap<String, MethodKey[]> methods =
+                REGISTRY.computeIfAbsent(interfaceClass, k -> new ConcurrentHashMap<>(16));
+        MethodKey[] keys = methods.get(method);
+        if (null != keys) {
+            for (MethodKey key : keys) {
+                if (key.matches(parameterTypes)) {
+                    return key;
+                }
+            }
+        }
+
+        MethodKey methodKey = new MethodKey(interfaceClass, method, parameterTypes);
+        MethodKey[] newKeys = null == keys ? new MethodKey[1] : Arrays.copyOf(keys, keys.length + 1);
+        newKeys[newKeys.length - 1] = methodKey;
+        methods.put(method, newKeys);
+        // 先登记再绑定快照，与HystrixConfigStore.update在同一把锁下完成，不会漏掉并发的配置变更
+        BY_CONFIG_KEY.putIfAbsent(methodKey.getConfigKey(), methodKey);
+        HystrixConfigStore.bind(methodKey);
+        // 收集key，由HystrixDynamicSource负责加载配置
+        HystrixDynamicSource.collectKey(methodKey.getConfigKey(), refresh);
+
+        log.info("[HYSTRIX-SDK] register KEY:[{}], CommandKey:[{}]", methodKey.getConfigKey(),
+                methodKey.getCommandKeyName());
+        return methodKey;
+    }
+}
@@ -0,0 +1,85 @@
+package com.hystrix.dubbo;
+
+import com.hystrix.dubbo.limit.AdaptiveConcurrencyLimiter;
+import com.hystrix.dubbo.metrics.PrometheusMetricsServlet;
+import com.hystrix.dubbo.model.HystrixConfig;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import org.junit.Test;
+import org.testng.Assert;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AdaptiveConcurrencyLimiterTest
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    public void testGradient() throws InterruptedException {
+        MethodKey methodKey = MethodKeyRegistry.resolve(CharSequence.class, "charAt", new Class<?>[]{int.class});
+        HystrixConfig config = new HystrixConfig();
+        config.setConcurrencyLimitStrategy("GRADIENT");
+        config.setAdaptiveInitialLimit(20);
+        config.setAdaptiveMaxLimit(100);
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.getInstance(methodKey, config);
+        Assert.assertEquals(limiter.getLimit(), 20);
+
+        // 并发数用满，未达到上限前拒绝
+        for (int i = 0; i < 20; i++) {
+            Assert.assertTrue(limiter.tryAcquire());
+        }
+        Assert.assertFalse(limiter.tryAcquire());
+        Assert.assertEquals(limiter.getRejected(), 1);
+        releaseAll(limiter, 20, 1, false, config);
+
+        // 耗时稳定时增加
+        for (int i = 0; i < 10; i++) {
+            window(limiter, 1, false, config);
+        }
+        int grown = limiter.getLimit();
+        Assert.assertTrue(grown > 20, "limit: " + grown);
+        Assert.assertTrue(grown <= 100, "limit: " + grown);
+
+        // 耗时变长时减小
+        for (int i = 0; i < 5; i++) {
+            window(limiter, 20, false, config);
+        }
+        int shrunk = limiter.getLimit();
+        Assert.assertTrue(shrunk < grown, "limit: " + shrunk);
+
+        // 超时时减小
+        window(limiter, 1, true, config);
+        Assert.assertTrue(limiter.getLimit() < shrunk, "limit: " + limiter.getLimit());
+        Assert.assertEquals(limiter.getInFlight(), 0);
+
+        String text = PrometheusMetricsServlet.scrape();
+        Assert.assertTrue(text.contains("hystrix_dubbo_concurrency_limit{group=\"java.lang.CharSequence\","
+                + "command=\"charAt#int\"} " + limiter.getLimit() + "\n"));
+        Assert.assertTrue(text.contains("hystrix_dubbo_concurrency_rejected_total{group=\"java.lang.CharSequence\","
+                + "command=\"charAt#int\"} " + limiter.getRejected() + "\n"));
+    }
+
+    /**
+     * 用满当前并发数，等窗口结束后全部释放
+     */
+    private static void window(AdaptiveConcurrencyLimiter limiter, long rttMillis, boolean dropped,
+                               HystrixConfig config) throws InterruptedException {
+        int permits = 0;
+        while (limiter.tryAcquire()) {
+            permits++;
+        }
+        TimeUnit.MILLISECONDS.sleep(110);
+        releaseAll(limiter, permits, rttMillis, dropped, config);
+    }
+
+    private static void releaseAll(AdaptiveConcurrencyLimiter limiter, int permits, long rttMillis, boolean dropped,
+                                   HystrixConfig config) {
+        for (int i = 0; i < permits; i++) {
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(rttMillis), dropped, config);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.hystrix.dubbo;
+
+import com.hystrix.dubbo.listener.AdaptiveTimeoutTuner;
+import com.hystrix.dubbo.listener.HystrixDynamicSource;
+import com.hystrix.dubbo.metrics.CommandLatencyMetrics;
+import com.hystrix.dubbo.model.HystrixModel;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import com.netflix.config.ConfigurationManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.testng.Assert;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AdaptiveTimeoutTest
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class AdaptiveTimeoutTest {
+
+    private final MapConfigSource configSource = new MapConfigSource();
+    private final HystrixDynamicSource dynamicSource = new HystrixDynamicSource();
+
+    @Before
+    public void init() {
+        dynamicSource.setConfigSource(configSource);
+    }
+
+    @After
+    public void destroy() {
+        dynamicSource.setConfigSource(null);
+    }
+
+    @Test
+    public void testTune() {
+        MethodKey methodKey = MethodKeyRegistry.resolve(Iterable.class, "forEach", new Class<?>[]{Object.class});
+        HystrixModel model = new HystrixModel();
+        model.setEnable("1");
+        model.getHystrixConfig().setAdaptiveTimeoutEnabled(true);
+        model.getHystrixConfig().setAdaptiveTimeoutMarginMillis(50);
+        model.getHystrixConfig().setAdaptiveTimeoutMinMillis(100);
+        model.getHystrixConfig().setAdaptiveTimeoutMaxMillis(2000);
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+
+        String property = "hystrix.command.forEach#Object.execution.isolation.thread.timeoutInMilliseconds";
+        Assert.assertEquals(ConfigurationManager.getConfigInstance().getInt(property), 2000);
+        Assert.assertTrue(ConfigurationManager.getConfigInstance()
+                .getBoolean("hystrix.command.forEach#Object.execution.timeout.enabled"));
+
+        // 样本不足时使用上限
+        HystrixDynamicSource.tuneTimeouts();
+        Assert.assertEquals(AdaptiveTimeoutTuner.getTimeout(methodKey.getConfigKey()), Integer.valueOf(2000));
+
+        CommandLatencyMetrics metrics = CommandLatencyMetrics.getInstance(methodKey);
+        for (int i = 0; i < 200; i++) {
+            metrics.getExecution().record(TimeUnit.MILLISECONDS.toNanos(i < 198 ? 100 : 1000));
+        }
+        HystrixDynamicSource.tuneTimeouts();
+        int timeout = ConfigurationManager.getConfigInstance().getInt(property);
+        Assert.assertTrue(timeout >= 150 && timeout < 160, "timeout: " + timeout);
+
+        // 配置刷新不覆盖计算出的超时时间
+        model.getHystrixConfig().setAdaptiveTimeoutMarginMillis(60);
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+        Assert.assertEquals(ConfigurationManager.getConfigInstance().getInt(property), timeout);
+    }
+
+    @Test
+    public void testClearOnDisable() {
+        MethodKey methodKey = MethodKeyRegistry.resolve(Appendable.class, "append",
+                new Class<?>[]{CharSequence.class});
+        HystrixModel model = new HystrixModel();
+        model.setEnable("1");
+        model.getHystrixConfig().setSemaphoreMaxConcurrentRequests(7);
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+
+        String property = "hystrix.command.append#CharSequence.execution.isolation.semaphore.maxConcurrentRequests";
+        Assert.assertEquals(ConfigurationManager.getConfigInstance().getInt(property), 7);
+
+        // 关闭后清除，重新打开时使用默认值
+        model.setEnable("0");
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+        Assert.assertFalse(ConfigurationManager.getConfigInstance().containsKey(property));
+
+        HystrixModel reopened = new HystrixModel();
+        reopened.setEnable("1");
+        configSource.put(methodKey.getConfigKey(), reopened);
+        dynamicSource.fillConfig();
+        Assert.assertEquals(ConfigurationManager.getConfigInstance().getInt(property), 100);
+
+        // 删除配置后同样清除
+        configSource.remove(methodKey.getConfigKey());
+        dynamicSource.fillConfig();
+        Assert.assertFalse(ConfigurationManager.getConfigInstance().containsKey(property));
+    }
+}
@@ -0,0 +1,237 @@
+package com.hystrix.dubbo;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.hystrix.dubbo.filter.DubboHystrixFilter;
+import com.hystrix.dubbo.listener.HystrixDynamicSource;
+import com.hystrix.dubbo.model.HystrixModel;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.utils.GroovyCacheUtil;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.testng.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * CollapserTest
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class CollapserTest {
+
+    private static final String SHED_SCRIPT = "def fallback(id) { return 'shed' }";
+
+    public interface BatchService {
+
+        String getById(Long id);
+
+        List<String> getByIds(List<Long> ids);
+    }
+
+    public interface TenantService {
+
+        String getById(Long id);
+
+        List<String> getByIds(List<Long> ids);
+    }
+
+    public interface PriorityService {
+
+        String getById(Long id);
+
+        List<String> getByIds(List<Long> ids);
+    }
+
+    public interface OrderService {
+
+        String getById(Long id);
+
+        List<String> getByIds(List<Long> ids);
+    }
+
+    private final DubboHystrixFilter filter = new DubboHystrixFilter();
+    private final MapConfigSource configSource = new MapConfigSource();
+    private final HystrixDynamicSource dynamicSource = new HystrixDynamicSource();
+
+    @Before
+    public void init() {
+        dynamicSource.setConfigSource(configSource);
+    }
+
+    @After
+    public void destroy() {
+        dynamicSource.setConfigSource(null);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCollapse() throws Exception {
+        MethodKey methodKey = MethodKeyRegistry.resolve(BatchService.class, "getById", new Class<?>[]{Long.class});
+        HystrixModel model = new HystrixModel();
+        model.setEnable("1");
+        model.setBatchMethod("getByIds");
+        model.getHystrixConfig().setCollapserTimerDelayInMilliseconds(100);
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+
+        AtomicInteger batchCalls = new AtomicInteger();
+        Invoker<BatchService> invoker = Mockito.mock(Invoker.class);
+        Mockito.when(invoker.getInterface()).thenReturn(BatchService.class);
+        Mockito.when(invoker.getUrl()).thenReturn(URL.valueOf("dubbo://127.0.0.1:20880/"
+                + BatchService.class.getName() + "?side=consumer"));
+        Mockito.when(invoker.invoke(Mockito.any(Invocation.class))).then(answer -> {
+            Invocation invocation = answer.getArgument(0);
+            if (!"getByIds".equals(invocation.getMethodName())) {
+                return new RpcResult(new RpcException("single call should be collapsed"));
+            }
+            batchCalls.incrementAndGet();
+            List<Long> ids = (List<Long>) invocation.getArguments()[0];
+            return new RpcResult(ids.stream().map(id -> "V" + id).collect(Collectors.toList()));
+        });
+
+        int calls = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(calls);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Result>> results = new ArrayList<>();
+        for (long i = 0; i < calls; i++) {
+            Invocation invocation = new RpcInvocation("getById", new Class<?>[]{Long.class}, new Object[]{i});
+            results.add(executor.submit(() -> {
+                start.await();
+                return filter.invoke(invoker, invocation);
+            }));
+        }
+        start.countDown();
+        for (int i = 0; i < calls; i++) {
+            Assert.assertEquals(results.get(i).get(5, TimeUnit.SECONDS).getValue(), "V" + i);
+        }
+        executor.shutdown();
+        Assert.assertTrue(batchCalls.get() < calls, "batch calls: " + batchCalls.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBusinessException() {
+        MethodKey methodKey = MethodKeyRegistry.resolve(OrderService.class, "getById", new Class<?>[]{Long.class});
+        HystrixModel model = new HystrixModel();
+        model.setEnable("1");
+        model.setBatchMethod("getByIds");
+        model.setFallbackScript("def fallback(id) { return 'fallback' }");
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+
+        Invoker<OrderService> invoker = Mockito.mock(Invoker.class);
+        Mockito.when(invoker.getInterface()).thenReturn(OrderService.class);
+        Mockito.when(invoker.getUrl()).thenReturn(URL.valueOf("dubbo://127.0.0.1:20880/"
+                + OrderService.class.getName() + "?side=consumer"));
+        Mockito.when(invoker.invoke(Mockito.any(Invocation.class)))
+                .thenReturn(new RpcResult(new IllegalArgumentException("order not found")));
+
+        // 业务异常原样返回，不走熔断脚本
+        Result result = filter.invoke(invoker, new RpcInvocation("getById", new Class<?>[]{Long.class},
+                new Object[]{1L}));
+        Assert.assertTrue(result.getException() instanceof IllegalArgumentException, String.valueOf(result));
+        Assert.assertNull(result.getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testShardByAttachments() throws Exception {
+        MethodKey methodKey = MethodKeyRegistry.resolve(TenantService.class, "getById", new Class<?>[]{Long.class});
+        HystrixModel model = new HystrixModel();
+        model.setEnable("1");
+        model.setBatchMethod("getByIds");
+        model.setBatchIgnoredAttachments(Collections.singletonList("traceId"));
+        model.getHystrixConfig().setCollapserTimerDelayInMilliseconds(100);
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+
+        Map<Long, Map<String, String>> batchAttachments = new ConcurrentHashMap<>();
+        Invoker<TenantService> invoker = Mockito.mock(Invoker.class);
+        Mockito.when(invoker.getInterface()).thenReturn(TenantService.class);
+        Mockito.when(invoker.getUrl()).thenReturn(URL.valueOf("dubbo://127.0.0.1:20880/"
+                + TenantService.class.getName() + "?side=consumer"));
+        Mockito.when(invoker.invoke(Mockito.any(Invocation.class))).then(answer -> {
+            Invocation invocation = answer.getArgument(0);
+            List<Long> ids = (List<Long>) invocation.getArguments()[0];
+            ids.forEach(id -> batchAttachments.put(id, invocation.getAttachments()));
+            return new RpcResult(ids.stream().map(id -> invocation.getAttachment("tenant") + "-" + id)
+                    .collect(Collectors.toList()));
+        });
+
+        int calls = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(calls);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Result>> results = new ArrayList<>();
+        for (long i = 0; i < calls; i++) {
+            RpcInvocation invocation = new RpcInvocation("getById", new Class<?>[]{Long.class}, new Object[]{i});
+            invocation.setAttachment("tenant", "T" + i % 2);
+            invocation.setAttachment("traceId", "trace-" + i);
+            results.add(executor.submit(() -> {
+                start.await();
+                return filter.invoke(invoker, invocation);
+            }));
+        }
+        start.countDown();
+        for (int i = 0; i < calls; i++) {
+            // 每个调用拿到自己租户的结果，批量调用不携带traceId
+            Assert.assertEquals(results.get(i).get(5, TimeUnit.SECONDS).getValue(), "T" + i % 2 + "-" + i);
+            Assert.assertFalse(batchAttachments.get((long) i).containsKey("traceId"));
+        }
+        executor.shutdown();
+        // 不同租户的调用不在同一批，忽略traceId后相同租户的调用仍然合并
+        Assert.assertTrue(batchAttachments.values().stream().distinct().count() < calls);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPriorityApplied() throws InterruptedException {
+        MethodKey methodKey = MethodKeyRegistry.resolve(PriorityService.class, "getById", new Class<?>[]{Long.class});
+        HystrixModel model = new HystrixModel();
+        model.setEnable("1");
+        model.setBatchMethod("getByIds");
+        model.setFallbackScript(SHED_SCRIPT);
+        model.getHystrixConfig().setPriorityEnabled(true);
+        // 默认优先级1不允许占用并发数
+        model.getHystrixConfig().setPriorityThresholds(new int[]{100, 0});
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+
+        Invoker<PriorityService> invoker = Mockito.mock(Invoker.class);
+        Mockito.when(invoker.getInterface()).thenReturn(PriorityService.class);
+        Mockito.when(invoker.getUrl()).thenReturn(URL.valueOf("dubbo://127.0.0.1:20880/"
+                + PriorityService.class.getName() + "?side=consumer"));
+        Mockito.when(invoker.invoke(Mockito.any(Invocation.class)))
+                .thenReturn(new RpcResult(Arrays.asList("V1")));
+
+        // 等待脚本编译完成，避免首次编译超过等待时间
+        for (int i = 0; i < 100 && null == GroovyCacheUtil.getHandler(SHED_SCRIPT, false); i++) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        Result result = filter.invoke(invoker, new RpcInvocation("getById", new Class<?>[]{Long.class},
+                new Object[]{1L}));
+        Assert.assertEquals(result.getValue(), "shed");
+        Mockito.verify(invoker, Mockito.never()).invoke(Mockito.any(Invocation.class));
+    }
+}
@@ -0,0 +1,243 @@
+package com.hystrix.dubbo;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.remoting.exchange.ResponseCallback;
+import com.alibaba.dubbo.remoting.exchange.ResponseFuture;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcContext;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.alibaba.dubbo.rpc.StaticContext;
+import com.alibaba.dubbo.rpc.protocol.dubbo.FutureAdapter;
+import com.alibaba.dubbo.rpc.protocol.dubbo.filter.FutureFilter;
+import com.hystrix.dubbo.command.DubboHystrixObservableCommand;
+import com.hystrix.dubbo.constants.HystrixConstants;
+import com.hystrix.dubbo.filter.DubboHystrixFilter;
+import com.hystrix.dubbo.listener.HystrixDynamicSource;
+import com.hystrix.dubbo.model.HystrixModel;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.testng.Assert;
+
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DubboHystrixFilterTest
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class DubboHystrixFilterTest {
+
+    public interface DemoService {
+
+        String get(String id);
+
+        String find(String id);
+
+        String load(String id);
+    }
+
+    public static class ReturnNotify {
+
+        private final CompletableFuture<String> returned = new CompletableFuture<>();
+
+        public void onReturn(String value) {
+            returned.complete(value);
+        }
+    }
+
+    private final DubboHystrixFilter filter = new DubboHystrixFilter();
+    private final MapConfigSource configSource = new MapConfigSource();
+    private final HystrixDynamicSource dynamicSource = new HystrixDynamicSource();
+
+    @Before
+    public void init() {
+        dynamicSource.setConfigSource(configSource);
+    }
+
+    @After
+    public void destroy() {
+        dynamicSource.setConfigSource(null);
+        RpcContext.removeContext();
+    }
+
+    @Test
+    public void testAsyncConsumer() throws Exception {
+        Invocation invocation = invocation("get");
+        enable(invocation);
+
+        ResponseFuture responseFuture = Mockito.mock(ResponseFuture.class);
+        Invoker<DemoService> invoker = invoker("side=consumer&async=true");
+        Mockito.when(invoker.invoke(invocation)).then(answer -> {
+            RpcContext.getContext().setFuture(new FutureAdapter<>(responseFuture));
+            return new RpcResult();
+        });
+
+        Result result = filter.invoke(invoker, invocation);
+        Future<Object> future = RpcContext.getContext().getFuture();
+        Assert.assertNull(result.getValue());
+        Assert.assertFalse(future.isDone());
+
+        ArgumentCaptor<ResponseCallback> callback = ArgumentCaptor.forClass(ResponseCallback.class);
+        Mockito.verify(responseFuture).setCallback(callback.capture());
+        callback.getValue().done(new RpcResult("SUCC"));
+
+        Assert.assertEquals(future.get(1, TimeUnit.SECONDS), "SUCC");
+    }
+
+    @Test
+    public void testAsyncOnReturn() throws Exception {
+        Invocation invocation = invocation("find");
+        enable(invocation);
+
+        ResponseFuture responseFuture = Mockito.mock(ResponseFuture.class);
+        Invoker<DemoService> invoker = invoker("side=consumer&async=true");
+        Mockito.when(invoker.invoke(invocation)).then(answer -> {
+            RpcContext.getContext().setFuture(new FutureAdapter<>(responseFuture));
+            return new RpcResult();
+        });
+        // FutureFilter在本过滤器之外，从RpcContext中的future注册onreturn回调
+        ReturnNotify notify = new ReturnNotify();
+        StaticContext.getSystemContext().put(StaticContext.getKey(invoker.getUrl(), "find",
+                Constants.ON_RETURN_INSTANCE_KEY), notify);
+        StaticContext.getSystemContext().put(StaticContext.getKey(invoker.getUrl(), "find",
+                Constants.ON_RETURN_METHOD_KEY), ReturnNotify.class.getMethod("onReturn", String.class));
+        Invoker<DemoService> chain = invoker("side=consumer&async=true");
+        Mockito.when(chain.invoke(invocation)).then(answer -> filter.invoke(invoker, invocation));
+
+        new FutureFilter().invoke(chain, invocation);
+        Future<Object> future = RpcContext.getContext().getFuture();
+        Assert.assertTrue(future instanceof FutureAdapter);
+
+        ArgumentCaptor<ResponseCallback> callback = ArgumentCaptor.forClass(ResponseCallback.class);
+        Mockito.verify(responseFuture).setCallback(callback.capture());
+        callback.getValue().done(new RpcResult("SUCC"));
+
+        Assert.assertEquals(future.get(1, TimeUnit.SECONDS), "SUCC");
+        Assert.assertEquals(notify.returned.get(1, TimeUnit.SECONDS), "SUCC");
+    }
+
+    @Test
+    public void testAsyncThreadPool() {
+        Invocation invocation = invocation("load");
+        MethodKey methodKey = MethodKeyRegistry.resolve(DemoService.class, "load", invocation.getParameterTypes());
+        HystrixModel model = new HystrixModel();
+        model.setEnable("1");
+        model.getHystrixConfig().setExecutionIsolationStrategy(HystrixConstants.THREAD);
+        model.getHystrixConfig().setThreadPoolKeyGranularity(HystrixConstants.POOL_METHOD);
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+
+        DubboHystrixObservableCommand command = new DubboHystrixObservableCommand(invoker("side=consumer&async=true"),
+                invocation, methodKey, methodKey.getSnapshot());
+        // 异步命令与同步命令使用同一个线程池
+        Assert.assertEquals(command.getThreadPoolKey().name(), methodKey.getConfigKey());
+        Assert.assertEquals(command.getThreadPoolKey(), methodKey.getSnapshot().getThreadPoolKey());
+    }
+
+    @Test
+    public void testDisabledNoAllocation() {
+        Invocation configured = invocation("get");
+        MethodKey methodKey = MethodKeyRegistry.resolve(DemoService.class, "get", configured.getParameterTypes());
+        HystrixModel model = new HystrixModel();
+        model.setEnable("0");
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+        Assert.assertNotNull(methodKey.getSnapshot());
+        Assert.assertFalse(methodKey.getSnapshot().isEnabled());
+        // 没有配置的方法
+        Invocation unconfigured = new RpcInvocation("get", new Class<?>[]{Integer.class}, new Object[]{1});
+
+        Result expected = new RpcResult("SUCC");
+        Invoker<DemoService> invoker = new StubInvoker(expected);
+        ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        // 预热，完成key注册及JIT编译
+        for (int i = 0; i < 100_000; i++) {
+            filter.invoke(invoker, configured);
+            filter.invoke(invoker, unconfigured);
+        }
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            Assert.assertSame(filter.invoke(invoker, configured), expected);
+            Assert.assertSame(filter.invoke(invoker, unconfigured), expected);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+        // 容忍统计本身及JIT的少量分配，每次调用哪怕只分配一个对象（至少16字节）也会超过3MB
+        Assert.assertTrue(allocated < 64 * 1024, "allocated " + allocated + " bytes");
+    }
+
+    private void enable(Invocation invocation) {
+        MethodKey methodKey = MethodKeyRegistry.resolve(DemoService.class, invocation.getMethodName(),
+                invocation.getParameterTypes());
+        HystrixModel model = new HystrixModel();
+        model.setEnable("1");
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+    }
+
+    private static Invocation invocation(String method) {
+        return new RpcInvocation(method, new Class<?>[]{String.class}, new Object[]{"1"});
+    }
+
+    /**
+     * mock的invoker每次调用都会分配对象，分配测试使用固定返回结果的invoker
+     */
+    private static final class StubInvoker implements Invoker<DemoService> {
+
+        private final URL url = URL.valueOf("dubbo://127.0.0.1:20880/" + DemoService.class.getName()
+                + "?side=consumer");
+        private final Result result;
+
+        StubInvoker(Result result) {
+            this.result = result;
+        }
+
+        @Override
+        public Class<DemoService> getInterface() {
+            return DemoService.class;
+        }
+
+        @Override
+        public Result invoke(Invocation invocation) {
+            return result;
+        }
+
+        @Override
+        public URL getUrl() {
+            return url;
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Invoker<DemoService> invoker(String parameters) {
+        Invoker<DemoService> invoker = Mockito.mock(Invoker.class);
+        Mockito.when(invoker.getInterface()).thenReturn(DemoService.class);
+        Mockito.when(invoker.getUrl()).thenReturn(URL.valueOf("dubbo://127.0.0.1:20880/"
+                + DemoService.class.getName() + "?" + parameters));
+        return invoker;
+    }
+}
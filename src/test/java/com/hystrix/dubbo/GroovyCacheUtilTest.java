@@ -0,0 +1,90 @@
+package com.hystrix.dubbo;
+
+import com.hystrix.dubbo.script.FallbackHandler;
+import com.hystrix.dubbo.utils.GroovyCacheUtil;
+import groovy.lang.GroovyObject;
+import org.junit.Test;
+import org.testng.Assert;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GroovyCacheUtilTest
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class GroovyCacheUtilTest {
+
+    private static final String SCRIPT = "package com.dubbo.groovy\n" +
+            "class GroovyDemo {\n" +
+            "    def fallback(String id) {\n" +
+            "        return \"Fallback-\" + id\n" +
+            "    }\n" +
+            "}";
+
+    @Test
+    public void testSameContentCompiledOnce() throws InterruptedException {
+        GroovyObject first = await(SCRIPT);
+        // 内容相同但不是同一个字符串对象
+        GroovyObject second = GroovyCacheUtil.getValue(new String(SCRIPT));
+
+        Assert.assertNotNull(first);
+        Assert.assertSame(first, second);
+        Assert.assertEquals(first.invokeMethod("fallback", new Object[]{"1"}), "Fallback-1");
+    }
+
+    @Test
+    public void testChangedContent() throws InterruptedException {
+        GroovyObject first = await(SCRIPT);
+        GroovyObject changed = await(SCRIPT.replace("Fallback-", "Changed-"));
+
+        Assert.assertNotSame(first, changed);
+        Assert.assertEquals(changed.invokeMethod("fallback", new Object[]{"1"}), "Changed-1");
+    }
+
+    /**
+     * 首次编译需要初始化groovy，可能超过请求线程的等待时间
+     */
+    private static GroovyObject await(String script) throws InterruptedException {
+        GroovyCacheUtil.precompile(script);
+        for (int i = 0; i < 100; i++) {
+            GroovyObject instance = GroovyCacheUtil.getValue(script);
+            if (null != instance) {
+                return instance;
+            }
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        return null;
+    }
+
+    @Test
+    public void testStaticScript() throws InterruptedException {
+        String script = "import com.hystrix.dubbo.script.FallbackHandler\n" +
+                "class StaticDemo implements FallbackHandler {\n" +
+                "    Object fallback(Object[] args) {\n" +
+                "        return \"Static-\" + args[0]\n" +
+                "    }\n" +
+                "}";
+        GroovyCacheUtil.precompile(script, true);
+        FallbackHandler handler = null;
+        for (int i = 0; i < 100 && null == handler; i++) {
+            TimeUnit.MILLISECONDS.sleep(100);
+            handler = GroovyCacheUtil.getHandler(script, true);
+        }
+
+        Assert.assertNotNull(handler);
+        Assert.assertTrue(handler.getClass().getName().endsWith("StaticDemo"));
+        Assert.assertEquals(handler.fallback(new Object[]{"1"}), "Static-1");
+        // 动态模式的脚本没有实现接口，静态编译时拒绝
+        await(SCRIPT);
+        Assert.assertNull(GroovyCacheUtil.getHandler(SCRIPT, true));
+        Assert.assertEquals(GroovyCacheUtil.getHandler(SCRIPT, false).fallback(new Object[]{"1"}), "Fallback-1");
+    }
+
+    @Test
+    public void testInvalidScript() {
+        Assert.assertNull(GroovyCacheUtil.getValue("class {"));
+        Assert.assertNull(GroovyCacheUtil.getValue(""));
+    }
+}
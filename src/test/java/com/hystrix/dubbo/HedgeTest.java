@@ -0,0 +1,198 @@
+package com.hystrix.dubbo;
+
+import com.alibaba.dubbo.common.Constants;
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.remoting.RemotingException;
+import com.alibaba.dubbo.remoting.exchange.ResponseCallback;
+import com.alibaba.dubbo.remoting.exchange.ResponseFuture;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcContext;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.alibaba.dubbo.rpc.protocol.dubbo.FutureAdapter;
+import com.hystrix.dubbo.cluster.ProviderRegistry;
+import com.hystrix.dubbo.cluster.ProviderRegistryListener;
+import com.hystrix.dubbo.command.HedgedInvoker;
+import com.hystrix.dubbo.filter.DubboHystrixFilter;
+import com.hystrix.dubbo.listener.HystrixDynamicSource;
+import com.hystrix.dubbo.metrics.CommandLatencyMetrics;
+import com.hystrix.dubbo.model.HystrixModel;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.testng.Assert;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HedgeTest
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class HedgeTest {
+
+    public interface PriceService {
+
+        String price(String sku);
+    }
+
+    public interface StockService {
+
+        String stock(String sku);
+    }
+
+    private final DubboHystrixFilter filter = new DubboHystrixFilter();
+    private final MapConfigSource configSource = new MapConfigSource();
+    private final HystrixDynamicSource dynamicSource = new HystrixDynamicSource();
+    private final ScheduledExecutorService responder = Executors.newSingleThreadScheduledExecutor();
+
+    @Before
+    public void init() {
+        dynamicSource.setConfigSource(configSource);
+    }
+
+    @After
+    public void destroy() {
+        dynamicSource.setConfigSource(null);
+        responder.shutdownNow();
+    }
+
+    @Test
+    public void testHedge() throws Exception {
+        MethodKey methodKey = MethodKeyRegistry.resolve(PriceService.class, "price", new Class<?>[]{String.class});
+        HystrixModel model = new HystrixModel();
+        model.setEnable("1");
+        model.setIdempotent("1");
+        model.setHedge("1");
+        model.setHedgeBudgetPercent(100);
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+        // 正常耗时20ms
+        for (int i = 0; i < 200; i++) {
+            CommandLatencyMetrics.getInstance(methodKey).getExecution().record(TimeUnit.MILLISECONDS.toNanos(20));
+        }
+
+        Invoker<PriceService> slow = invoker("10.0.0.1", 3000);
+        Invoker<PriceService> fast = invoker("10.0.0.2", 10);
+        ProviderRegistry.register(fast);
+
+        long start = System.nanoTime();
+        Result result = filter.invoke(slow, new RpcInvocation("price", new Class<?>[]{String.class},
+                new Object[]{"sku"}));
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assert.assertEquals(result.getValue(), "10.0.0.2");
+        Assert.assertTrue(millis < 2000, "cost: " + millis);
+        Assert.assertEquals(HedgedInvoker.getInstance(methodKey).getHedged(), 1);
+        Assert.assertNull(RpcContext.getContext().getFuture());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testListenerProviders() throws Exception {
+        MethodKey methodKey = MethodKeyRegistry.resolve(StockService.class, "stock", new Class<?>[]{String.class});
+        HystrixModel model = new HystrixModel();
+        model.setEnable("1");
+        model.setIdempotent("1");
+        model.setHedge("1");
+        model.setHedgeBudgetPercent(100);
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+        for (int i = 0; i < 200; i++) {
+            CommandLatencyMetrics.getInstance(methodKey).getExecution().record(TimeUnit.MILLISECONDS.toNanos(20));
+        }
+
+        Invoker<StockService> slow = invoker(StockService.class, "10.0.1.1", 300);
+        Invoker<StockService> fast = invoker(StockService.class, "10.0.1.2", 10);
+        // 监听器拿到的invoker带有消费端过滤器链
+        URL url = fast.getUrl();
+        Invoker<StockService> chained = Mockito.mock(Invoker.class);
+        Mockito.when(chained.getInterface()).thenReturn(StockService.class);
+        Mockito.when(chained.isAvailable()).thenReturn(true);
+        Mockito.when(chained.getUrl()).thenReturn(url);
+        Mockito.when(chained.invoke(Mockito.any(Invocation.class)))
+                .then(answer -> filter.invoke(fast, answer.getArgument(0)));
+        ProviderRegistryListener listener = new ProviderRegistryListener();
+        listener.referred(chained);
+
+        Result result = filter.invoke(slow, new RpcInvocation("stock", new Class<?>[]{String.class},
+                new Object[]{"sku"}));
+        Assert.assertEquals(result.getValue(), "10.0.1.2");
+        Assert.assertEquals(HedgedInvoker.getInstance(methodKey).getHedged(), 1);
+        Mockito.verify(fast, Mockito.times(1)).invoke(Mockito.any(Invocation.class));
+
+        // 提供者下线后没有备份提供者，等待主调用
+        Mockito.when(chained.isAvailable()).thenReturn(false);
+        listener.destroyed(chained);
+        result = filter.invoke(slow, new RpcInvocation("stock", new Class<?>[]{String.class}, new Object[]{"sku"}));
+        Assert.assertEquals(result.getValue(), "10.0.1.1");
+        Assert.assertEquals(HedgedInvoker.getInstance(methodKey).getHedged(), 1);
+        Assert.assertEquals(HedgedInvoker.getInstance(methodKey).getNoBackup(), 1);
+    }
+
+    private Invoker<PriceService> invoker(String host, long delayMillis) {
+        return invoker(PriceService.class, host, delayMillis);
+    }
+
+    /**
+     * 异步调用时返回延迟完成的future，结果为提供者地址
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Invoker<T> invoker(Class<T> type, String host, long delayMillis) {
+        Invoker<T> invoker = Mockito.mock(Invoker.class);
+        Mockito.when(invoker.getInterface()).thenReturn(type);
+        Mockito.when(invoker.isAvailable()).thenReturn(true);
+        Mockito.when(invoker.getUrl()).thenReturn(URL.valueOf("dubbo://" + host + ":20880/"
+                + type.getName() + "?side=consumer"));
+        Mockito.when(invoker.invoke(Mockito.any(Invocation.class))).then(answer -> {
+            Invocation invocation = answer.getArgument(0);
+            Assert.assertEquals(invocation.getAttachment(Constants.ASYNC_KEY), "true");
+            RpcContext.getContext().setFuture(new FutureAdapter<>(new DelayedFuture(new RpcResult(host), delayMillis)));
+            return new RpcResult();
+        });
+        return invoker;
+    }
+
+    private final class DelayedFuture implements ResponseFuture {
+
+        private final Result result;
+        private final long delayMillis;
+        private volatile boolean done;
+
+        DelayedFuture(Result result, long delayMillis) {
+            this.result = result;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public Object get() throws RemotingException {
+            return result;
+        }
+
+        @Override
+        public Object get(int timeoutInMillis) throws RemotingException {
+            return result;
+        }
+
+        @Override
+        public void setCallback(ResponseCallback callback) {
+            responder.schedule(() -> {
+                done = true;
+                callback.done(result);
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public boolean isDone() {
+            return done;
+        }
+    }
+}
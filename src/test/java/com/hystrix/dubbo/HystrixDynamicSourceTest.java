@@ -0,0 +1,117 @@
+package com.hystrix.dubbo;
+
+import com.hystrix.dubbo.constants.HystrixConstants;
+import com.hystrix.dubbo.listener.HystrixConfigStore;
+import com.hystrix.dubbo.listener.HystrixDynamicSource;
+import com.hystrix.dubbo.model.ConfigSnapshot;
+import com.hystrix.dubbo.model.HystrixModel;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import com.netflix.config.ConfigurationManager;
+import com.netflix.config.DynamicIntProperty;
+import com.netflix.config.DynamicPropertyFactory;
+import com.netflix.config.DynamicStringProperty;
+import org.apache.commons.configuration.AbstractConfiguration;
+import org.apache.commons.configuration.event.ConfigurationListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.testng.Assert;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HystrixDynamicSourceTest
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class HystrixDynamicSourceTest {
+
+    public interface ProfileService {
+
+        String describe(String id);
+
+        String rename(String id);
+    }
+
+    private final MapConfigSource configSource = new MapConfigSource();
+    private final HystrixDynamicSource dynamicSource = new HystrixDynamicSource();
+
+    @Before
+    public void init() {
+        dynamicSource.setConfigSource(configSource);
+    }
+
+    @After
+    public void destroy() {
+        dynamicSource.setConfigSource(null);
+    }
+
+    @Test
+    public void testKeepSnapshot() {
+        MethodKey methodKey = MethodKeyRegistry.resolve(ProfileService.class, "describe", new Class<?>[]{String.class});
+        HystrixModel model = new HystrixModel();
+        model.setEnable("1");
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+        ConfigSnapshot snapshot = HystrixConfigStore.get(methodKey.getConfigKey());
+        Assert.assertNotNull(snapshot);
+        Assert.assertSame(methodKey.getSnapshot(), snapshot);
+
+        // 内容未变化时不重新解析
+        dynamicSource.fillConfig();
+        Assert.assertSame(HystrixConfigStore.get(methodKey.getConfigKey()), snapshot);
+
+        // 解析失败时保留旧快照
+        configSource.putValue(methodKey.getConfigKey(), "{\"enable\":");
+        dynamicSource.fillConfig();
+        Assert.assertSame(HystrixConfigStore.get(methodKey.getConfigKey()), snapshot);
+        Assert.assertSame(methodKey.getSnapshot(), snapshot);
+
+        // 内容变化后替换
+        model.setDegrade("1");
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+        ConfigSnapshot changed = HystrixConfigStore.get(methodKey.getConfigKey());
+        Assert.assertTrue(changed.getVersion() > snapshot.getVersion());
+        Assert.assertSame(methodKey.getSnapshot(), changed);
+    }
+
+    @Test
+    public void testApplyInOneEvent() {
+        MethodKey methodKey = MethodKeyRegistry.resolve(ProfileService.class, "rename", new Class<?>[]{String.class});
+        HystrixModel model = new HystrixModel();
+        model.setEnable("1");
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+
+        String prefix = "hystrix.command.rename#String.";
+        DynamicIntProperty timeout = DynamicPropertyFactory.getInstance()
+                .getIntProperty(prefix + "execution.isolation.thread.timeoutInMilliseconds", 0);
+        DynamicStringProperty strategy = DynamicPropertyFactory.getInstance()
+                .getStringProperty(prefix + "execution.isolation.strategy", null);
+        Assert.assertEquals(strategy.get(), HystrixConstants.SEMAPHORE);
+
+        AbstractConfiguration configuration = ConfigurationManager.getConfigInstance();
+        AtomicInteger events = new AtomicInteger();
+        ConfigurationListener listener = event -> {
+            if (!event.isBeforeUpdate()) {
+                events.incrementAndGet();
+            }
+        };
+        configuration.addConfigurationListener(listener);
+        try {
+            // 超时时间和隔离策略同时变化，只触发一次监听
+            model.getHystrixConfig().setExecutionTimeoutInMilliseconds(1234);
+            model.getHystrixConfig().setExecutionIsolationStrategy(HystrixConstants.THREAD);
+            configSource.put(methodKey.getConfigKey(), model);
+            dynamicSource.fillConfig();
+        } finally {
+            configuration.removeConfigurationListener(listener);
+        }
+        Assert.assertEquals(events.get(), 1);
+        Assert.assertEquals(timeout.get(), 1234);
+        Assert.assertEquals(strategy.get(), HystrixConstants.THREAD);
+    }
+}
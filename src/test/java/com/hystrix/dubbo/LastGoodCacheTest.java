@@ -0,0 +1,221 @@
+package com.hystrix.dubbo;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.hystrix.dubbo.cache.FallbackSnapshotStore;
+import com.hystrix.dubbo.cache.LastGoodCache;
+import com.hystrix.dubbo.filter.DubboHystrixFilter;
+import com.hystrix.dubbo.listener.HystrixDynamicSource;
+import com.hystrix.dubbo.model.HystrixModel;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.utils.GroovyCacheUtil;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.testng.Assert;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * LastGoodCacheTest
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class LastGoodCacheTest {
+
+    public interface CatalogService {
+
+        String find(String id);
+
+        String search(List<String> tags);
+    }
+
+    public static class Item {
+
+        private long id;
+        private String name;
+        private List<String> tags;
+
+        Item(long id, String name, List<String> tags) {
+            this.id = id;
+            this.name = name;
+            this.tags = tags;
+        }
+    }
+
+    private static final String SCRIPT = "def fallback(id) { return 'script' }";
+
+    private final DubboHystrixFilter filter = new DubboHystrixFilter();
+    private final MapConfigSource configSource = new MapConfigSource();
+    private final HystrixDynamicSource dynamicSource = new HystrixDynamicSource();
+
+    @Before
+    public void init() {
+        dynamicSource.setConfigSource(configSource);
+    }
+
+    @After
+    public void destroy() {
+        dynamicSource.setConfigSource(null);
+        LastGoodCache.invalidateAll();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testServeOnTimeout() throws Exception {
+        MethodKey methodKey = MethodKeyRegistry.resolve(CatalogService.class, "find", new Class<?>[]{String.class});
+        HystrixModel model = new HystrixModel();
+        model.setEnable("1");
+        model.setLastGood("1");
+        model.setFallbackScript(SCRIPT);
+        model.getHystrixConfig().setExecutionTimeoutEnabled(true);
+        model.getHystrixConfig().setExecutionTimeoutInMilliseconds(100);
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+
+        AtomicBoolean slow = new AtomicBoolean(false);
+        Invoker<CatalogService> invoker = Mockito.mock(Invoker.class);
+        Mockito.when(invoker.getInterface()).thenReturn(CatalogService.class);
+        Mockito.when(invoker.getUrl()).thenReturn(URL.valueOf("dubbo://127.0.0.1:20880/"
+                + CatalogService.class.getName() + "?side=consumer"));
+        Mockito.when(invoker.invoke(Mockito.any(Invocation.class))).then(answer -> {
+            if (slow.get()) {
+                TimeUnit.MILLISECONDS.sleep(500);
+            }
+            Invocation invocation = answer.getArgument(0);
+            return new RpcResult("V" + invocation.getArguments()[0]);
+        });
+
+        Assert.assertEquals(filter.invoke(invoker, invocation("1")).getValue(), "V1");
+        // 等待脚本编译完成，避免首次编译超过等待时间
+        for (int i = 0; i < 100 && null == GroovyCacheUtil.getHandler(SCRIPT, false); i++) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+
+        slow.set(true);
+        Assert.assertEquals(filter.invoke(invoker, invocation("1")).getValue(), "V1");
+        // 没有记录的参数走熔断脚本
+        Assert.assertEquals(filter.invoke(invoker, invocation("2")).getValue(), "script");
+    }
+
+    @Test
+    public void testMaxStale() throws Exception {
+        MethodKey methodKey = MethodKeyRegistry.resolve(CatalogService.class, "find", new Class<?>[]{String.class});
+        Invocation invocation = invocation("1");
+        LastGoodCache.put(methodKey, invocation, new RpcResult("V1"), 60000);
+
+        Assert.assertEquals(LastGoodCache.get(methodKey, invocation("1"), 60000).getValue(), "V1");
+        TimeUnit.MILLISECONDS.sleep(20);
+        // 配置调小后按新的陈旧时间判断
+        Assert.assertNull(LastGoodCache.get(methodKey, invocation("1"), 10));
+        Assert.assertNull(LastGoodCache.get(methodKey, invocation("2"), 60000));
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        MethodKey methodKey = MethodKeyRegistry.resolve(CatalogService.class, "find", new Class<?>[]{String.class});
+        Path file = Files.createTempDirectory("hystrix").resolve("fallback.snapshot");
+        FallbackSnapshotStore.start(file, 60000);
+        LastGoodCache.put(methodKey, invocation("1"), new RpcResult(Arrays.asList("a", "b")), 60000);
+        LastGoodCache.put(methodKey, invocation("2"), new RpcResult(new Object()), 60000);
+        FallbackSnapshotStore.stop();
+        Assert.assertTrue(Files.size(file) > 0);
+
+        // 模拟重启
+        LastGoodCache.invalidateAll();
+        FallbackSnapshotStore.start(file, 60000);
+        try {
+            Assert.assertEquals(LastGoodCache.get(methodKey, invocation("1"), 60000).getValue(),
+                    Arrays.asList("a", "b"));
+            // 不能序列化的返回值不持久化
+            Assert.assertNull(LastGoodCache.get(methodKey, invocation("2"), 60000));
+        } finally {
+            FallbackSnapshotStore.stop();
+        }
+    }
+
+    @Test
+    public void testPendingExpired() throws Exception {
+        MethodKey methodKey = MethodKeyRegistry.resolve(CatalogService.class, "find", new Class<?>[]{String.class});
+        Path file = Files.createTempDirectory("hystrix").resolve("fallback.snapshot");
+        FallbackSnapshotStore.start(file, 60000);
+        LastGoodCache.put(methodKey, invocation("1"), new RpcResult("V1"), 300);
+        FallbackSnapshotStore.stop();
+        long written = Files.size(file);
+
+        // 重启后方法一直没有降级，暂存的记录过期后不再写回
+        LastGoodCache.invalidateAll();
+        FallbackSnapshotStore.start(file, 60000);
+        TimeUnit.MILLISECONDS.sleep(400);
+        FallbackSnapshotStore.stop();
+        Assert.assertTrue(Files.size(file) < written, Files.size(file) + " < " + written);
+    }
+
+    @Test
+    public void testPendingRetention() throws Exception {
+        MethodKey methodKey = MethodKeyRegistry.resolve(CatalogService.class, "find", new Class<?>[]{String.class});
+        Path file = Files.createTempDirectory("hystrix").resolve("fallback.snapshot");
+        FallbackSnapshotStore.start(file, 60000);
+        LastGoodCache.put(methodKey, invocation("1"), new RpcResult("V1"), 60000);
+        FallbackSnapshotStore.stop();
+        long written = Files.size(file);
+
+        // 超过保留时间后暂存的记录全部丢弃
+        LastGoodCache.invalidateAll();
+        System.setProperty("hystrix.dubbo.lastGood.pendingRetentionMillis", "0");
+        try {
+            FallbackSnapshotStore.start(file, 60000);
+            FallbackSnapshotStore.stop();
+        } finally {
+            System.clearProperty("hystrix.dubbo.lastGood.pendingRetentionMillis");
+        }
+        Assert.assertTrue(Files.size(file) < written, Files.size(file) + " < " + written);
+        Assert.assertNull(LastGoodCache.get(methodKey, invocation("1"), 60000));
+    }
+
+    @Test
+    public void testArgumentsCopied() {
+        MethodKey methodKey = MethodKeyRegistry.resolve(CatalogService.class, "search", new Class<?>[]{List.class});
+        List<String> tags = new ArrayList<>(Arrays.asList("a", "b"));
+        LastGoodCache.put(methodKey, search(tags), new RpcResult("V1"), 60000);
+        // 调用方之后修改参数不影响已记录的key
+        tags.add("c");
+        Assert.assertEquals(LastGoodCache.get(methodKey, search(Arrays.asList("a", "b")), 60000).getValue(), "V1");
+        Assert.assertNull(LastGoodCache.get(methodKey, search(tags), 60000));
+    }
+
+    @Test
+    public void testWeigh() {
+        List<Item> small = new ArrayList<>();
+        List<Item> large = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            small.add(new Item(i, "item", Collections.singletonList("t")));
+            large.add(new Item(i, new String(new char[1000]), Collections.nCopies(100, "tag-" + i)));
+        }
+        // 元素数量相同时按嵌套的内容估算
+        Assert.assertTrue(LastGoodCache.weigh(large) > 10 * LastGoodCache.weigh(small));
+        Assert.assertTrue(LastGoodCache.weigh(small) > 100 * LastGoodCache.weigh("item"));
+        Assert.assertEquals(LastGoodCache.weigh(null), 1);
+    }
+
+    private static Invocation search(List<String> tags) {
+        return new RpcInvocation("search", new Class<?>[]{List.class}, new Object[]{tags});
+    }
+
+    private static Invocation invocation(String id) {
+        return new RpcInvocation("find", new Class<?>[]{String.class}, new Object[]{id});
+    }
+}
@@ -0,0 +1,48 @@
+package com.hystrix.dubbo;
+
+import com.alibaba.fastjson.JSON;
+import com.hystrix.dubbo.model.HystrixModel;
+import com.hystrix.dubbo.source.ConfigChangeListener;
+import com.hystrix.dubbo.source.HystrixConfigSource;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MapConfigSource
+ * 测试用的内存配置来源
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class MapConfigSource implements HystrixConfigSource {
+
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+
+    public void put(String key, HystrixModel model) {
+        values.put(key, JSON.toJSONString(model));
+    }
+
+    public void putValue(String key, String value) {
+        values.put(key, value);
+    }
+
+    public void remove(String key) {
+        values.remove(key);
+    }
+
+    @Override
+    public String get(String key) {
+        return values.getOrDefault(key, "");
+    }
+
+    @Override
+    public boolean subscribe(ConfigChangeListener listener) {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        values.clear();
+    }
+}
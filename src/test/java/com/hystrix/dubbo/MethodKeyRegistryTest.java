@@ -0,0 +1,59 @@
+package com.hystrix.dubbo;
+
+import com.hystrix.dubbo.constants.HystrixConstants;
+import com.hystrix.dubbo.model.HystrixConfig;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import org.junit.Test;
+import org.testng.Assert;
+
+/**
+ * MethodKeyRegistryTest
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class MethodKeyRegistryTest {
+
+    @Test
+    public void testKeyFormat() {
+        MethodKey key = MethodKeyRegistry.resolve(Runnable.class, "get", new Class<?>[]{String.class, int.class});
+
+        Assert.assertEquals(key.getConfigKey(), "java.lang.Runnable.get#String,int");
+        Assert.assertEquals(key.getCommandKeyName(), "get#String,int");
+        Assert.assertEquals(key.getGroupKey(), "java.lang.Runnable");
+        Assert.assertEquals(key.getHystrixCommandKey().name(), "get#String,int");
+    }
+
+    @Test
+    public void testNoArgs() {
+        MethodKey empty = MethodKeyRegistry.resolve(Runnable.class, "run", new Class<?>[0]);
+        MethodKey nullTypes = MethodKeyRegistry.resolve(Runnable.class, "run", null);
+
+        Assert.assertSame(empty, nullTypes);
+        Assert.assertEquals(empty.getConfigKey(), "java.lang.Runnable.run");
+    }
+
+    @Test
+    public void testReuse() {
+        MethodKey first = MethodKeyRegistry.resolve(Comparable.class, "compareTo", new Class<?>[]{Object.class});
+        MethodKey second = MethodKeyRegistry.resolve(Comparable.class, "compareTo", new Class<?>[]{Object.class});
+        MethodKey overload = MethodKeyRegistry.resolve(Comparable.class, "compareTo", new Class<?>[]{String.class});
+
+        Assert.assertSame(first, second);
+        Assert.assertNotSame(first, overload);
+        Assert.assertEquals(overload.getConfigKey(), "java.lang.Comparable.compareTo#String");
+    }
+
+    @Test
+    public void testThreadPoolKey() {
+        MethodKey key = MethodKeyRegistry.resolve(Runnable.class, "get", new Class<?>[]{String.class, int.class});
+        HystrixConfig config = new HystrixConfig();
+
+        Assert.assertEquals(config.threadPoolKey(key.getConfigKey()), "java.lang.Runnable");
+        config.setThreadPoolKeyGranularity(HystrixConstants.POOL_METHOD);
+        Assert.assertEquals(config.threadPoolKey(key.getConfigKey()), "java.lang.Runnable.get#String,int");
+        config.setThreadPoolKeyGranularity(HystrixConstants.POOL_SHARED);
+        Assert.assertEquals(config.threadPoolKey(key.getConfigKey()), HystrixConstants.SHARED_POOL_KEY);
+    }
+}
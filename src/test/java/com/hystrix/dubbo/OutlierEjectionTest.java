@@ -0,0 +1,115 @@
+package com.hystrix.dubbo;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.RpcException;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.google.common.base.Ticker;
+import com.hystrix.dubbo.cluster.OutlierDetector;
+import com.hystrix.dubbo.filter.DubboHystrixFilter;
+import com.hystrix.dubbo.listener.HystrixDynamicSource;
+import com.hystrix.dubbo.metrics.PrometheusMetricsServlet;
+import com.hystrix.dubbo.model.HystrixConfig;
+import com.hystrix.dubbo.model.HystrixModel;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.testng.Assert;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OutlierEjectionTest
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class OutlierEjectionTest {
+
+    public interface StockService {
+
+        String stock(String sku);
+    }
+
+    private final DubboHystrixFilter filter = new DubboHystrixFilter();
+    private final MapConfigSource configSource = new MapConfigSource();
+    private final HystrixDynamicSource dynamicSource = new HystrixDynamicSource();
+
+    @Before
+    public void init() {
+        dynamicSource.setConfigSource(configSource);
+    }
+
+    @After
+    public void destroy() {
+        dynamicSource.setConfigSource(null);
+    }
+
+    @Test
+    public void testEject() {
+        MethodKey methodKey = MethodKeyRegistry.resolve(StockService.class, "stock", new Class<?>[]{String.class});
+        HystrixModel model = new HystrixModel();
+        model.setEnable("1");
+        HystrixConfig config = model.getHystrixConfig();
+        config.setOutlierEjectionEnabled(true);
+        config.setOutlierIntervalMillis(5000);
+        config.setOutlierRequestVolumeThreshold(5);
+        // 方法级熔断不打开
+        config.setRequestVolumeThreshold(1000);
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+
+        // 统计周期由手动推进的时钟控制，与调用耗时无关
+        AtomicLong nanos = new AtomicLong();
+        OutlierDetector detector = OutlierDetector.getInstance(methodKey);
+        detector.setTicker(new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        });
+
+        Invoker<StockService> sick = invoker("10.0.0.1", false);
+        Invoker<StockService> healthy = invoker("10.0.0.2", true);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertNull(filter.invoke(sick, invocation()).getValue());
+            Assert.assertEquals(filter.invoke(healthy, invocation()).getValue(), "10.0.0.2");
+        }
+        Assert.assertFalse(detector.isEjected("10.0.0.1:20880"));
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(5000));
+        // 周期结束后的第一次调用触发判断
+        filter.invoke(sick, invocation());
+        filter.invoke(healthy, invocation());
+
+        Assert.assertTrue(detector.isEjected("10.0.0.1:20880"));
+        Assert.assertFalse(detector.isEjected("10.0.0.2:20880"));
+        // 发往被摘除提供者的调用改发到其它提供者
+        Assert.assertEquals(filter.invoke(sick, invocation()).getValue(), "10.0.0.2");
+
+        String text = PrometheusMetricsServlet.scrape();
+        Assert.assertTrue(text.contains("hystrix_dubbo_provider_ejected{group=\"" + StockService.class.getName()
+                + "\",command=\"stock#String\",provider=\"10.0.0.1:20880\"} 1"));
+    }
+
+    private static Invocation invocation() {
+        return new RpcInvocation("stock", new Class<?>[]{String.class}, new Object[]{"sku"});
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Invoker<StockService> invoker(String host, boolean healthy) {
+        Invoker<StockService> invoker = Mockito.mock(Invoker.class);
+        Mockito.when(invoker.getInterface()).thenReturn(StockService.class);
+        Mockito.when(invoker.isAvailable()).thenReturn(true);
+        Mockito.when(invoker.getUrl()).thenReturn(URL.valueOf("dubbo://" + host + ":20880/"
+                + StockService.class.getName() + "?side=consumer"));
+        Mockito.when(invoker.invoke(Mockito.any(Invocation.class))).thenAnswer(answer -> healthy
+                ? new RpcResult(host) : new RpcResult(new RpcException(RpcException.NETWORK_EXCEPTION, "down")));
+        return invoker;
+    }
+}
@@ -0,0 +1,136 @@
+package com.hystrix.dubbo;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.hystrix.dubbo.constants.HystrixConstants;
+import com.hystrix.dubbo.filter.DubboHystrixFilter;
+import com.hystrix.dubbo.limit.PriorityLoadShedder;
+import com.hystrix.dubbo.listener.HystrixDynamicSource;
+import com.hystrix.dubbo.metrics.PrometheusMetricsServlet;
+import com.hystrix.dubbo.model.HystrixConfig;
+import com.hystrix.dubbo.model.HystrixModel;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.utils.GroovyCacheUtil;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.testng.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PriorityLoadShedderTest
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class PriorityLoadShedderTest {
+
+    private static final String SCRIPT = "def fallback(id) { return 'shed' }";
+
+    public interface BatchService {
+
+        String load(String id);
+    }
+
+    private final DubboHystrixFilter filter = new DubboHystrixFilter();
+    private final MapConfigSource configSource = new MapConfigSource();
+    private final HystrixDynamicSource dynamicSource = new HystrixDynamicSource();
+
+    @Before
+    public void init() {
+        dynamicSource.setConfigSource(configSource);
+    }
+
+    @After
+    public void destroy() {
+        dynamicSource.setConfigSource(null);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testShedLowPriorityFirst() throws Exception {
+        MethodKey methodKey = MethodKeyRegistry.resolve(BatchService.class, "load", new Class<?>[]{String.class});
+        HystrixConfig config = new HystrixConfig();
+        config.setSemaphoreMaxConcurrentRequests(4);
+        config.setPriorityEnabled(true);
+        config.setPriorityThresholds(new int[]{100, 50});
+        HystrixModel model = new HystrixModel();
+        model.setEnable("1");
+        model.setFallbackScript(SCRIPT);
+        model.setHystrixConfig(config);
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+        for (int i = 0; i < 100 && null == GroovyCacheUtil.getHandler(SCRIPT, false); i++) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+
+        CountDownLatch release = new CountDownLatch(1);
+        Invoker<BatchService> invoker = Mockito.mock(Invoker.class);
+        Mockito.when(invoker.getInterface()).thenReturn(BatchService.class);
+        Mockito.when(invoker.getUrl()).thenReturn(URL.valueOf("dubbo://127.0.0.1:20880/"
+                + BatchService.class.getName() + "?side=provider"));
+        Mockito.when(invoker.invoke(Mockito.any(Invocation.class))).then(answer -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new RpcResult("remote");
+        });
+
+        // 两个低优先级调用占满一半并发数
+        PriorityLoadShedder shedder = PriorityLoadShedder.getInstance(methodKey);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Object>> running = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            running.add(executor.submit(() -> invoke(invoker, "1")));
+        }
+        for (int i = 0; i < 100 && shedder.getInFlight() < 2; i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        Assert.assertEquals(shedder.getInFlight(), 2);
+
+        // 低优先级和没有携带优先级的调用被拒绝，高优先级仍可进入
+        Assert.assertEquals(invoke(invoker, "1"), "shed");
+        Assert.assertEquals(invoke(invoker, null), "shed");
+        Assert.assertEquals(invoke(invoker, "9"), "shed");
+        for (int i = 0; i < 2; i++) {
+            running.add(executor.submit(() -> invoke(invoker, "0")));
+        }
+        for (int i = 0; i < 100 && shedder.getInFlight() < 4; i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        Assert.assertEquals(shedder.getInFlight(), 4);
+        Assert.assertEquals(invoke(invoker, "0"), "shed");
+
+        release.countDown();
+        for (Future<Object> future : running) {
+            Assert.assertEquals(future.get(5, TimeUnit.SECONDS), "remote");
+        }
+        executor.shutdown();
+        Assert.assertEquals(shedder.getInFlight(), 0);
+        Assert.assertEquals(shedder.getRejected(0), 1);
+        Assert.assertEquals(shedder.getRejected(1), 2);
+        Assert.assertEquals(shedder.getRejected(PriorityLoadShedder.LEVELS - 1), 1);
+
+        String text = PrometheusMetricsServlet.scrape();
+        String labels = "group=\"" + BatchService.class.getName() + "\",command=\"load#String\"";
+        Assert.assertTrue(text.contains("hystrix_dubbo_priority_rejected_total{" + labels + ",priority=\"1\"} 2\n"));
+    }
+
+    private Object invoke(Invoker<BatchService> invoker, String priority) {
+        RpcInvocation invocation = new RpcInvocation("load", new Class<?>[]{String.class}, new Object[]{"1"});
+        if (null != priority) {
+            invocation.setAttachment(HystrixConstants.PRIORITY_KEY, priority);
+        }
+        return filter.invoke(invoker, invocation).getValue();
+    }
+}
@@ -0,0 +1,99 @@
+package com.hystrix.dubbo;
+
+import com.hystrix.dubbo.limit.PriorityLoadShedder;
+import com.hystrix.dubbo.metrics.CommandLatencyMetrics;
+import com.hystrix.dubbo.metrics.PrometheusMetricsServlet;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import org.junit.Test;
+import org.testng.Assert;
+
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PrometheusMetricsTest
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class PrometheusMetricsTest {
+
+    @Test
+    public void testScrape() {
+        MethodKey methodKey = MethodKeyRegistry.resolve(Appendable.class, "append", new Class<?>[]{char.class});
+        CommandLatencyMetrics metrics = CommandLatencyMetrics.getInstance(methodKey);
+        Assert.assertSame(CommandLatencyMetrics.getInstance(methodKey), metrics);
+        for (int i = 1; i <= 100; i++) {
+            metrics.getExecution().record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        String labels = "{group=\"java.lang.Appendable\",command=\"append#char\"";
+        String text = PrometheusMetricsServlet.scrape();
+        Assert.assertTrue(text.contains("# TYPE hystrix_dubbo_execution_latency_seconds summary"));
+        Assert.assertTrue(text.contains("hystrix_dubbo_execution_latency_seconds_count" + labels + "} 100"));
+        Assert.assertTrue(text.contains("hystrix_dubbo_execution_latency_seconds_sum" + labels + "} 5.05"));
+        Assert.assertTrue(text.contains("hystrix_dubbo_execution_latency_seconds" + labels + ",quantile=\"0.5\"} 0.05"));
+        Assert.assertFalse(text.contains("hystrix_dubbo_fallback_latency_seconds_count" + labels));
+
+        // 分位数只统计两次抓取之间的数据，总数累计
+        text = PrometheusMetricsServlet.scrape();
+        Assert.assertTrue(text.contains("hystrix_dubbo_execution_latency_seconds" + labels + ",quantile=\"0.5\"} NaN"));
+        Assert.assertTrue(text.contains("hystrix_dubbo_execution_latency_seconds_count" + labels + "} 100"));
+    }
+
+    @Test
+    public void testSameSignatureAcrossInterfaces() {
+        MethodKey readable = MethodKeyRegistry.resolve(Readable.class, "read", new Class<?>[]{CharBuffer.class});
+        MethodKey reader = MethodKeyRegistry.resolve(Reader.class, "read", new Class<?>[]{CharBuffer.class});
+        Assert.assertEquals(readable.getHystrixCommandKey(), reader.getHystrixCommandKey());
+
+        // 同名方法不共用统计和并发数
+        Assert.assertNotSame(CommandLatencyMetrics.getInstance(readable), CommandLatencyMetrics.getInstance(reader));
+        Assert.assertNotSame(PriorityLoadShedder.getInstance(readable), PriorityLoadShedder.getInstance(reader));
+        CommandLatencyMetrics.getInstance(readable).getExecution().record(TimeUnit.MILLISECONDS.toNanos(1));
+        CommandLatencyMetrics.getInstance(reader).getExecution().record(TimeUnit.MILLISECONDS.toNanos(1));
+        CommandLatencyMetrics.getInstance(reader).getExecution().record(TimeUnit.MILLISECONDS.toNanos(1));
+
+        String text = PrometheusMetricsServlet.scrape();
+        Assert.assertTrue(text.contains("hystrix_dubbo_execution_latency_seconds_count{group=\"java.lang.Readable\","
+                + "command=\"read#CharBuffer\"} 1\n"));
+        Assert.assertTrue(text.contains("hystrix_dubbo_execution_latency_seconds_count{group=\"java.io.Reader\","
+                + "command=\"read#CharBuffer\"} 2\n"));
+    }
+
+    @Test
+    public void testConcurrentScrape() throws Exception {
+        MethodKey methodKey = MethodKeyRegistry.resolve(Appendable.class, "append", new Class<?>[]{CharSequence.class});
+        CommandLatencyMetrics metrics = CommandLatencyMetrics.getInstance(methodKey);
+        String quantile = "hystrix_dubbo_execution_latency_seconds{group=\"java.lang.Appendable\","
+                + "command=\"append#CharSequence\",quantile=\"0.5\"} ";
+        for (int round = 0; round < 20; round++) {
+            for (int i = 1; i <= 100; i++) {
+                metrics.getExecution().record(TimeUnit.MILLISECONDS.toNanos(i));
+            }
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            CompletableFuture<String> other = CompletableFuture.supplyAsync(() -> {
+                await(barrier);
+                return PrometheusMetricsServlet.scrape();
+            });
+            await(barrier);
+            String text = PrometheusMetricsServlet.scrape();
+            String otherText = other.get(5, TimeUnit.SECONDS);
+            // 区间数据完整地计入其中一次抓取，另一次为NaN
+            Assert.assertTrue(text.contains(quantile + "0.05") ^ otherText.contains(quantile + "0.05"));
+            Assert.assertTrue(text.contains(quantile + "NaN") ^ otherText.contains(quantile + "NaN"));
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.hystrix.dubbo;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.hystrix.dubbo.filter.DubboHystrixFilter;
+import com.hystrix.dubbo.limit.RateLimiter;
+import com.hystrix.dubbo.listener.HystrixDynamicSource;
+import com.hystrix.dubbo.model.HystrixModel;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.model.RateLimitConfig;
+import com.hystrix.dubbo.utils.GroovyCacheUtil;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.testng.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RateLimiterTest
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class RateLimiterTest {
+
+    private static final String SCRIPT = "def fallback(id) { return 'limited' }";
+
+    public interface LimitedService {
+
+        String find(String id);
+    }
+
+    private final DubboHystrixFilter filter = new DubboHystrixFilter();
+    private final MapConfigSource configSource = new MapConfigSource();
+    private final HystrixDynamicSource dynamicSource = new HystrixDynamicSource();
+
+    @Before
+    public void init() {
+        dynamicSource.setConfigSource(configSource);
+    }
+
+    @After
+    public void destroy() {
+        dynamicSource.setConfigSource(null);
+    }
+
+    @Test
+    public void testBurstAndRefill() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(100, 10);
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        Assert.assertEquals(acquired, 10);
+
+        TimeUnit.MILLISECONDS.sleep(100);
+        acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        Assert.assertTrue(acquired >= 5 && acquired <= 10, "acquired: " + acquired);
+    }
+
+    @Test
+    public void testSingleThread() throws InterruptedException {
+        // 单个线程只落在一个条带上，第一次取不到令牌前也能取走其它条带的令牌
+        RateLimiter limiter = new RateLimiter(2000, 256, 32);
+        Assert.assertEquals(limiter.getStripes(), 32);
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        Assert.assertEquals(acquired, 256);
+
+        // 每10ms取到没有令牌为止，总数与速率一致
+        acquired = 0;
+        long begin = System.nanoTime();
+        for (int i = 0; i < 50; i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        Assert.assertTrue(acquired <= 2 * elapsedMillis + 256, "acquired: " + acquired + ", cost: " + elapsedMillis);
+        Assert.assertTrue(acquired >= 2 * elapsedMillis * 9 / 10, "acquired: " + acquired + ", cost: " + elapsedMillis);
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        int threads = 8;
+        RateLimiter limiter = new RateLimiter(2000, 200);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        long duration = TimeUnit.MILLISECONDS.toNanos(500);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                long end = System.nanoTime() + duration;
+                int acquired = 0;
+                while (System.nanoTime() < end) {
+                    if (limiter.tryAcquire()) {
+                        acquired++;
+                    }
+                }
+                return acquired;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        int acquired = 0;
+        for (Future<Integer> result : results) {
+            acquired += result.get(5, TimeUnit.SECONDS);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        executor.shutdown();
+        // 不超过速率加桶容量，条带不均匀时允许少发一部分
+        Assert.assertTrue(acquired <= 2 * elapsedMillis + 200, "acquired: " + acquired + ", cost: " + elapsedMillis);
+        Assert.assertTrue(acquired >= 600, "acquired: " + acquired);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFilterAndRefresh() throws InterruptedException {
+        MethodKey methodKey = MethodKeyRegistry.resolve(LimitedService.class, "find", new Class<?>[]{String.class});
+        // 每分钟补充一个令牌，测试期间不会补充，只剩桶容量
+        HystrixModel model = model(1 / 60.0, 2);
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+        for (int i = 0; i < 100 && null == GroovyCacheUtil.getHandler(SCRIPT, false); i++) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+
+        Invoker<LimitedService> invoker = Mockito.mock(Invoker.class);
+        Mockito.when(invoker.getInterface()).thenReturn(LimitedService.class);
+        Mockito.when(invoker.getUrl()).thenReturn(URL.valueOf("dubbo://127.0.0.1:20880/"
+                + LimitedService.class.getName() + "?side=consumer"));
+        Mockito.when(invoker.invoke(Mockito.any(Invocation.class))).thenReturn(new RpcResult("remote"));
+
+        Assert.assertEquals(invoke(invoker), "remote");
+        Assert.assertEquals(invoke(invoker), "remote");
+        Assert.assertEquals(invoke(invoker), "limited");
+
+        // 刷新配置后按新的速率限流
+        configSource.put(methodKey.getConfigKey(), model(5 / 60.0, 5));
+        dynamicSource.fillConfig();
+        Assert.assertEquals(methodKey.getSnapshot().getRateLimiter().getBurst(), 5);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(invoke(invoker), "remote");
+        }
+        Assert.assertEquals(invoke(invoker), "limited");
+    }
+
+    private Object invoke(Invoker<LimitedService> invoker) {
+        return filter.invoke(invoker, new RpcInvocation("find", new Class<?>[]{String.class}, new Object[]{"1"}))
+                .getValue();
+    }
+
+    private static HystrixModel model(double permitsPerSecond, int burst) {
+        RateLimitConfig rateLimit = new RateLimitConfig();
+        rateLimit.setPermitsPerSecond(permitsPerSecond);
+        rateLimit.setBurst(burst);
+        HystrixModel model = new HystrixModel();
+        model.setEnable("1");
+        model.setFallbackScript(SCRIPT);
+        model.setRateLimit(rateLimit);
+        return model;
+    }
+}
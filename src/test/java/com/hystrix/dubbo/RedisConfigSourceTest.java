@@ -0,0 +1,135 @@
+package com.hystrix.dubbo;
+
+import com.alibaba.fastjson.JSON;
+import com.hystrix.dubbo.listener.HystrixConfigStore;
+import com.hystrix.dubbo.listener.HystrixDynamicSource;
+import com.hystrix.dubbo.model.ConfigSnapshot;
+import com.hystrix.dubbo.model.HystrixModel;
+import com.hystrix.dubbo.source.HystrixRedisProperties;
+import com.hystrix.dubbo.source.HystrixSourceConfiguration;
+import com.hystrix.dubbo.source.RedisHystrixConfigSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.core.io.support.SpringFactoriesLoader;
+import org.testng.Assert;
+import redis.clients.jedis.Jedis;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * RedisConfigSourceTest
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class RedisConfigSourceTest {
+
+    private static final String KEY = "com.hystrix.dubbo.DemoService.get#String";
+
+    private RedisServer redisServer;
+    private RedisHystrixConfigSource source;
+    private Jedis jedis;
+    private HystrixRedisProperties properties;
+
+    @Before
+    public void init() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        properties = new HystrixRedisProperties();
+        properties.setHost("127.0.0.1");
+        properties.setPort(port);
+        properties.setReconnectIntervalMillis(200);
+        source = new RedisHystrixConfigSource(properties);
+        jedis = new Jedis("127.0.0.1", port);
+    }
+
+    @After
+    public void destroy() {
+        new HystrixDynamicSource().setConfigSource(null);
+        jedis.close();
+        source.close();
+        redisServer.stop();
+    }
+
+    @Test
+    public void testAutoConfiguration() {
+        Assert.assertTrue(SpringFactoriesLoader.loadFactoryNames(EnableAutoConfiguration.class,
+                getClass().getClassLoader()).contains(HystrixSourceConfiguration.class.getName()));
+    }
+
+    @Test
+    public void testGet() {
+        Assert.assertEquals(source.get(KEY), "");
+        jedis.set(properties.getKeyPrefix() + KEY, "{}");
+        Assert.assertEquals(source.get(KEY), "{}");
+    }
+
+    @Test
+    public void testBatchGet() {
+        properties.setBatchSize(2);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            keys.add(KEY + i);
+            if (i % 2 == 0) {
+                jedis.set(properties.getKeyPrefix() + KEY + i, "{}");
+            }
+        }
+
+        Map<String, String> values = source.batchGet(keys);
+        Assert.assertEquals(values.size(), 5);
+        Assert.assertEquals(values.get(KEY + 0), "{}");
+        Assert.assertEquals(values.get(KEY + 1), "");
+        Assert.assertEquals(values.get(KEY + 4), "{}");
+    }
+
+    @Test
+    public void testPushUpdate() throws InterruptedException {
+        jedis.set(properties.getKeyPrefix() + KEY, model("1"));
+
+        HystrixDynamicSource dynamicSource = new HystrixDynamicSource();
+        dynamicSource.setConfigSource(source);
+        dynamicSource.schedule();
+        HystrixDynamicSource.collectKey(KEY);
+
+        ConfigSnapshot first = await(snapshot -> null != snapshot && snapshot.isEnabled());
+        Assert.assertNotNull(first);
+
+        jedis.set(properties.getKeyPrefix() + KEY, model("0"));
+        jedis.publish(properties.getChannel(), KEY);
+
+        ConfigSnapshot second = await(snapshot -> null != snapshot && !snapshot.isEnabled());
+        Assert.assertNotNull(second);
+        Assert.assertTrue(second.getVersion() > first.getVersion());
+    }
+
+    private static ConfigSnapshot await(Predicate<ConfigSnapshot> condition) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            ConfigSnapshot snapshot = HystrixConfigStore.get(KEY);
+            if (condition.test(snapshot)) {
+                return snapshot;
+            }
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        return null;
+    }
+
+    private static String model(String enable) {
+        HystrixModel hystrixModel = new HystrixModel();
+        hystrixModel.setEnable(enable);
+        return JSON.toJSONString(hystrixModel);
+    }
+}
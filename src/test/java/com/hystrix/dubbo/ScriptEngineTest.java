@@ -0,0 +1,124 @@
+package com.hystrix.dubbo;
+
+import com.hystrix.dubbo.model.ConfigSnapshot;
+import com.hystrix.dubbo.model.HystrixModel;
+import com.hystrix.dubbo.script.FallbackHandler;
+import com.hystrix.dubbo.script.FallbackScriptEngine;
+import com.hystrix.dubbo.script.QLExpressScriptEngine;
+import com.hystrix.dubbo.script.ScriptHandle;
+import org.junit.Test;
+import org.testng.Assert;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ScriptEngineTest
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class ScriptEngineTest {
+
+    private static final String KEY = "com.hystrix.dubbo.DemoService.get#String";
+
+    @Test
+    public void testQLExpress() {
+        HystrixModel model = new HystrixModel();
+        model.setScriptEngine(QLExpressScriptEngine.NAME);
+        ConfigSnapshot snapshot = new ConfigSnapshot(KEY, 1, "{}", model);
+        Assert.assertTrue(snapshot.getScriptEngine() instanceof QLExpressScriptEngine);
+
+        FallbackHandler handler = snapshot.getScriptEngine().getHandler("return \"Fallback-\" + args[0];", false);
+        Assert.assertEquals(handler.fallback(new Object[]{"1"}), "Fallback-1");
+        Assert.assertSame(snapshot.getScriptEngine().getHandler("return \"Fallback-\" + args[0];", false), handler);
+
+        Object result = snapshot.getScriptEngine().getHandler("return NewMap(\"code\":-1, \"id\":args[0]);", false)
+                .fallback(new Object[]{"1"});
+        Assert.assertEquals(((Map<?, ?>) result).get("id"), "1");
+        Assert.assertNull(snapshot.getScriptEngine().getHandler("return (;", false));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnknownEngine() {
+        HystrixModel model = new HystrixModel();
+        model.setScriptEngine("unknown");
+        new ConfigSnapshot(KEY, 1, "{}", model);
+    }
+
+    @Test
+    public void testKeepPreviousHandler() {
+        StubEngine engine = new StubEngine();
+        FallbackHandler first = args -> "first";
+        engine.future("first").complete(first);
+        ScriptHandle firstHandle = ScriptHandle.compile(engine, "first", false, null);
+        Assert.assertSame(firstHandle.get(0), first);
+
+        // 新脚本编译完成前不等待，继续使用旧脚本
+        ScriptHandle secondHandle = ScriptHandle.compile(engine, "second", false, firstHandle);
+        long start = System.currentTimeMillis();
+        Assert.assertSame(secondHandle.get(5000), first);
+        Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+        FallbackHandler second = args -> "second";
+        engine.future("second").complete(second);
+        Assert.assertSame(secondHandle.get(0), second);
+
+        // 编译失败时保留上一版
+        ScriptHandle brokenHandle = ScriptHandle.compile(engine, "broken", false, secondHandle);
+        engine.future("broken").completeExceptionally(new IllegalStateException("compile fail"));
+        Assert.assertSame(brokenHandle.get(0), second);
+        Assert.assertNull(ScriptHandle.compile(engine, "", false, secondHandle));
+    }
+
+    @Test
+    public void testWaitFirstCompile() {
+        StubEngine engine = new StubEngine();
+        ScriptHandle handle = ScriptHandle.compile(engine, "first", false, null);
+        long misses = ScriptHandle.getMisses();
+        Assert.assertNull(handle.get(50));
+        Assert.assertEquals(ScriptHandle.getMisses(), misses + 1);
+
+        FallbackHandler first = args -> "first";
+        CompletableFuture.runAsync(() -> {
+            sleep(100);
+            engine.future("first").complete(first);
+        });
+        Assert.assertSame(handle.get(5000), first);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 由测试控制编译完成时机的引擎
+     */
+    private static final class StubEngine implements FallbackScriptEngine {
+
+        private final Map<String, CompletableFuture<FallbackHandler>> futures = new HashMap<>();
+
+        synchronized CompletableFuture<FallbackHandler> future(String script) {
+            return futures.computeIfAbsent(script, key -> new CompletableFuture<>());
+        }
+
+        @Override
+        public FallbackHandler getHandler(String script, boolean staticScript) {
+            return future(script).getNow(null);
+        }
+
+        @Override
+        public CompletableFuture<FallbackHandler> precompile(String script, boolean staticScript) {
+            return future(script);
+        }
+
+        @Override
+        public synchronized void release(String script, boolean staticScript) {
+            futures.remove(script);
+        }
+    }
+}
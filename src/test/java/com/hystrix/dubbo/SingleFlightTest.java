@@ -0,0 +1,155 @@
+package com.hystrix.dubbo;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.hystrix.dubbo.filter.DubboHystrixFilter;
+import com.hystrix.dubbo.listener.HystrixDynamicSource;
+import com.hystrix.dubbo.model.HystrixModel;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.testng.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SingleFlightTest
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class SingleFlightTest {
+
+    public interface QueryService {
+
+        String query(String name);
+    }
+
+    public interface StuckService {
+
+        String query(String name);
+    }
+
+    private final DubboHystrixFilter filter = new DubboHystrixFilter();
+    private final MapConfigSource configSource = new MapConfigSource();
+    private final HystrixDynamicSource dynamicSource = new HystrixDynamicSource();
+
+    @Before
+    public void init() {
+        dynamicSource.setConfigSource(configSource);
+    }
+
+    @After
+    public void destroy() {
+        dynamicSource.setConfigSource(null);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSingleFlight() throws Exception {
+        MethodKey methodKey = MethodKeyRegistry.resolve(QueryService.class, "query", new Class<?>[]{String.class});
+        HystrixModel model = new HystrixModel();
+        model.setEnable("1");
+        model.setSingleFlight("1");
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+
+        AtomicInteger invokes = new AtomicInteger();
+        Invoker<QueryService> invoker = Mockito.mock(Invoker.class);
+        Mockito.when(invoker.getInterface()).thenReturn(QueryService.class);
+        Mockito.when(invoker.getUrl()).thenReturn(URL.valueOf("dubbo://127.0.0.1:20880/"
+                + QueryService.class.getName() + "?side=consumer"));
+        Mockito.when(invoker.invoke(Mockito.any(Invocation.class))).then(answer -> {
+            invokes.incrementAndGet();
+            TimeUnit.MILLISECONDS.sleep(300);
+            Invocation invocation = answer.getArgument(0);
+            return new RpcResult("V" + invocation.getArguments()[0]);
+        });
+
+        int calls = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(calls * 2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Result>> results = new ArrayList<>();
+        for (int i = 0; i < calls * 2; i++) {
+            // 两组参数，各自合并
+            String name = i % 2 == 0 ? "a" : "b";
+            Invocation invocation = new RpcInvocation("query", new Class<?>[]{String.class}, new Object[]{name});
+            results.add(executor.submit(() -> {
+                start.await();
+                return filter.invoke(invoker, invocation);
+            }));
+        }
+        start.countDown();
+        for (int i = 0; i < calls * 2; i++) {
+            Assert.assertEquals(results.get(i).get(5, TimeUnit.SECONDS).getValue(), i % 2 == 0 ? "Va" : "Vb");
+        }
+        executor.shutdown();
+        Assert.assertEquals(invokes.get(), 2);
+
+        // 执行完成后不再共用
+        Invocation invocation = new RpcInvocation("query", new Class<?>[]{String.class}, new Object[]{"a"});
+        Assert.assertEquals(filter.invoke(invoker, invocation).getValue(), "Va");
+        Assert.assertEquals(invokes.get(), 3);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLeaderHangs() throws Exception {
+        MethodKey methodKey = MethodKeyRegistry.resolve(StuckService.class, "query", new Class<?>[]{String.class});
+        HystrixModel model = new HystrixModel();
+        model.setEnable("1");
+        model.setSingleFlight("1");
+        // 未启用hystrix超时，执行中的调用会一直卡住
+        model.getHystrixConfig().setExecutionTimeoutInMilliseconds(300);
+        configSource.put(methodKey.getConfigKey(), model);
+        dynamicSource.fillConfig();
+
+        AtomicInteger invokes = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Invoker<StuckService> invoker = Mockito.mock(Invoker.class);
+        Mockito.when(invoker.getInterface()).thenReturn(StuckService.class);
+        Mockito.when(invoker.getUrl()).thenReturn(URL.valueOf("dubbo://127.0.0.1:20880/"
+                + StuckService.class.getName() + "?side=consumer"));
+        Mockito.when(invoker.invoke(Mockito.any(Invocation.class))).then(answer -> {
+            if (1 == invokes.incrementAndGet()) {
+                leaderStarted.countDown();
+                release.await(10, TimeUnit.SECONDS);
+                return new RpcResult("leader");
+            }
+            return new RpcResult("follower");
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Result> leader = executor.submit(() -> filter.invoke(invoker,
+                new RpcInvocation("query", new Class<?>[]{String.class}, new Object[]{"a"})));
+        Assert.assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        // 等待超过命令超时时间后自己执行
+        long start = System.currentTimeMillis();
+        Result result = filter.invoke(invoker, new RpcInvocation("query", new Class<?>[]{String.class},
+                new Object[]{"a"}));
+        long elapsed = System.currentTimeMillis() - start;
+        Assert.assertEquals(result.getValue(), "follower");
+        Assert.assertTrue(elapsed >= 250 && elapsed < 5000, "elapsed: " + elapsed);
+        Assert.assertEquals(invokes.get(), 2);
+
+        release.countDown();
+        Assert.assertEquals(leader.get(5, TimeUnit.SECONDS).getValue(), "leader");
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,93 @@
+package com.hystrix.dubbo;
+
+import com.alibaba.dubbo.config.spring.ReferenceBean;
+import com.hystrix.dubbo.listener.DubboKeyCollectListener;
+import com.hystrix.dubbo.listener.HystrixDynamicSource;
+import com.hystrix.dubbo.model.HystrixModel;
+import com.hystrix.dubbo.model.MethodKey;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import com.netflix.hystrix.HystrixCircuitBreaker;
+import com.netflix.hystrix.HystrixCommandMetrics;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.HystrixThreadPoolMetrics;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.testng.Assert;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WarmUpTest
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class WarmUpTest {
+
+    public interface OrderService {
+
+        String detail(Long orderId);
+
+        void cancel(Long orderId, String reason);
+    }
+
+    /**
+     * 记录后台线程逐个加载配置的次数，预热在当前线程批量加载
+     */
+    private final AtomicInteger asyncGets = new AtomicInteger();
+    private final Thread testThread = Thread.currentThread();
+    private final MapConfigSource configSource = new MapConfigSource() {
+        @Override
+        public String get(String key) {
+            if (Thread.currentThread() != testThread) {
+                asyncGets.incrementAndGet();
+            }
+            return super.get(key);
+        }
+    };
+
+    @After
+    public void destroy() {
+        new HystrixDynamicSource().setConfigSource(null);
+    }
+
+    @Test
+    public void testWarmUp() throws InterruptedException {
+        HystrixModel model = new HystrixModel();
+        model.setEnable("1");
+        configSource.put(OrderService.class.getName() + ".detail#Long", model);
+        HystrixDynamicSource dynamicSource = new HystrixDynamicSource();
+        dynamicSource.setConfigSource(configSource);
+
+        ReferenceBean<OrderService> referenceBean = new ReferenceBean<>();
+        referenceBean.setInterface(OrderService.class);
+        StaticApplicationContext context = new StaticApplicationContext();
+        context.getBeanFactory().registerSingleton("orderService", referenceBean);
+        DubboKeyCollectListener listener = new DubboKeyCollectListener();
+        listener.setApplicationContext(context);
+        listener.setDynamicSource(dynamicSource);
+        context.addApplicationListener(listener);
+        context.refresh();
+
+        Assert.assertTrue(HystrixDynamicSource.getCommandKey().contains(OrderService.class.getName() + ".detail#Long"));
+        Assert.assertTrue(HystrixDynamicSource.getCommandKey()
+                .contains(OrderService.class.getName() + ".cancel#Long,String"));
+
+        MethodKey detail = MethodKeyRegistry.get(OrderService.class.getName() + ".detail#Long");
+        Assert.assertNotNull(detail.getSnapshot());
+        Assert.assertTrue(detail.getSnapshot().isEnabled());
+        // 配置打开的方法已创建hystrix统计
+        Assert.assertNotNull(HystrixCommandMetrics.getInstance(detail.getHystrixCommandKey()));
+        MethodKey cancel = MethodKeyRegistry.get(OrderService.class.getName() + ".cancel#Long,String");
+        Assert.assertNull(HystrixCommandMetrics.getInstance(cancel.getHystrixCommandKey()));
+        Assert.assertNotNull(HystrixCircuitBreaker.Factory.getInstance(detail.getHystrixCommandKey()));
+        Assert.assertNotNull(HystrixThreadPoolMetrics.getInstance(
+                HystrixThreadPoolKey.Factory.asKey(detail.getHystrixGroupKey().name())));
+        // 登记时没有逐个加载配置
+        TimeUnit.MILLISECONDS.sleep(200);
+        Assert.assertEquals(asyncGets.get(), 0);
+        context.close();
+    }
+}
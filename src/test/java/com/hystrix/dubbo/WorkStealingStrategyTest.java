@@ -0,0 +1,138 @@
+package com.hystrix.dubbo;
+
+import com.alibaba.dubbo.common.URL;
+import com.alibaba.dubbo.rpc.Invocation;
+import com.alibaba.dubbo.rpc.Invoker;
+import com.alibaba.dubbo.rpc.Result;
+import com.alibaba.dubbo.rpc.RpcInvocation;
+import com.alibaba.dubbo.rpc.RpcResult;
+import com.hystrix.dubbo.constants.HystrixConstants;
+import com.hystrix.dubbo.filter.DubboHystrixFilter;
+import com.hystrix.dubbo.listener.HystrixDynamicSource;
+import com.hystrix.dubbo.model.HystrixConfig;
+import com.hystrix.dubbo.model.HystrixModel;
+import com.hystrix.dubbo.strategy.QuotaThreadPoolExecutor;
+import com.hystrix.dubbo.strategy.WorkStealingConcurrencyStrategy;
+import com.hystrix.dubbo.utils.MethodKeyRegistry;
+import com.netflix.hystrix.strategy.HystrixPlugins;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.testng.Assert;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WorkStealingStrategyTest
+ *
+ * @author liuruizhi
+ * @Date 2026/10/18
+ **/
+public class WorkStealingStrategyTest {
+
+    public interface QuotaService {
+
+        String get(String id);
+    }
+
+    private final HystrixDynamicSource dynamicSource = new HystrixDynamicSource();
+
+    @After
+    public void destroy() {
+        dynamicSource.setConfigSource(null);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testQuota() throws Exception {
+        // 模拟启动时注册，同一个jvm中之前的测试可能已经初始化了hystrix
+        HystrixPlugins.reset();
+        Assert.assertTrue(WorkStealingConcurrencyStrategy.install());
+        Invocation invocation = new RpcInvocation("get", new Class<?>[]{String.class}, new Object[]{"1"});
+        HystrixConfig config = new HystrixConfig();
+        config.setExecutionIsolationStrategy(HystrixConstants.WORK_STEALING);
+        config.setCoreSize(2);
+        config.setMaximumSize(2);
+        HystrixModel model = new HystrixModel();
+        model.setEnable("1");
+        model.setHystrixConfig(config);
+        MapConfigSource configSource = new MapConfigSource();
+        configSource.put(MethodKeyRegistry.resolve(QuotaService.class, "get", invocation.getParameterTypes())
+                .getConfigKey(), model);
+        dynamicSource.setConfigSource(configSource);
+        dynamicSource.fillConfig();
+
+        CountDownLatch entered = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        Invoker<QuotaService> invoker = Mockito.mock(Invoker.class);
+        Mockito.when(invoker.getInterface()).thenReturn(QuotaService.class);
+        Mockito.when(invoker.getUrl()).thenReturn(URL.valueOf("dubbo://127.0.0.1:20880/quota"));
+        Mockito.when(invoker.invoke(invocation)).then(answer -> {
+            threads.add(Thread.currentThread().getName());
+            entered.countDown();
+            release.await();
+            return new RpcResult("SUCC");
+        });
+
+        DubboHystrixFilter filter = new DubboHystrixFilter();
+        CompletableFuture<Result> first = CompletableFuture.supplyAsync(() -> filter.invoke(invoker, invocation));
+        CompletableFuture<Result> second = CompletableFuture.supplyAsync(() -> filter.invoke(invoker, invocation));
+        Assert.assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        // 配额用尽，直接走降级
+        Result rejected = filter.invoke(invoker, invocation);
+        Assert.assertNull(rejected.getValue());
+
+        release.countDown();
+        Assert.assertEquals(first.get(5, TimeUnit.SECONDS).getValue(), "SUCC");
+        Assert.assertEquals(second.get(5, TimeUnit.SECONDS).getValue(), "SUCC");
+        for (String thread : threads) {
+            Assert.assertTrue(thread.startsWith("hystrix-work-stealing-"), thread);
+        }
+    }
+
+    @Test
+    public void testCompensationLimit() throws Exception {
+        ForkJoinPool shared = new ForkJoinPool(2);
+        Semaphore compensation = new Semaphore(2);
+        QuotaThreadPoolExecutor first = new QuotaThreadPoolExecutor("first", shared, compensation, 10, 10);
+        QuotaThreadPoolExecutor second = new QuotaThreadPoolExecutor("second", shared, compensation, 10, 10);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(20);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Runnable blocking = () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            finished.countDown();
+        };
+        for (int i = 0; i < 10; i++) {
+            first.execute(blocking);
+            second.execute(blocking);
+        }
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        TimeUnit.MILLISECONDS.sleep(200);
+        // 每个key的配额之和是20，补充线程受共用上限限制，最多并行度2 + 补充2
+        Assert.assertTrue(maxRunning.get() <= 4, "running: " + maxRunning.get());
+        Assert.assertTrue(shared.getPoolSize() <= 4, "threads: " + shared.getPoolSize());
+
+        release.countDown();
+        Assert.assertTrue(finished.await(5, TimeUnit.SECONDS));
+        shared.shutdown();
+    }
+}